@@ -0,0 +1,41 @@
+package mango.challenge.products.benchmark;
+
+import mango.challenge.products.model.Price;
+import mango.challenge.products.model.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkData {
+
+    static final LocalDate HISTORY_START = LocalDate.of(2000, 1, 1);
+
+    private BenchmarkData() {
+    }
+
+    static Product product(long id) {
+        return Product.builder()
+                .id(id)
+                .name("Producto " + id)
+                .description("Descripción del producto " + id)
+                .build();
+    }
+
+    // Historial contiguo de precios semanales, el último abierto (sin endDate) como el precio vigente
+    static List<Price> weeklyHistory(Product product, int size) {
+        List<Price> prices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LocalDate initDate = HISTORY_START.plusWeeks(i);
+            prices.add(Price.builder()
+                    .id((long) i + 1)
+                    .product(product)
+                    .value(BigDecimal.valueOf(1000 + (i % 500), 2))
+                    .initDate(initDate)
+                    .endDate(i == size - 1 ? null : initDate.plusDays(6))
+                    .build());
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,61 @@
+package mango.challenge.products.benchmark;
+
+import mango.challenge.products.model.Price;
+import mango.challenge.products.model.Product;
+import mango.challenge.products.service.PriceService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceOverlapBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int historySize;
+
+    private List<Price> history;
+    private Price updatedFirst;
+    private Price updatedLast;
+
+    @Setup
+    public void setUp() {
+        Product product = BenchmarkData.product(1L);
+        history = BenchmarkData.weeklyHistory(product, historySize);
+
+        // Mismo caso que updatePrice: se modifica el valor de un precio existente sin cambiar sus fechas,
+        // así que el stream recorre todo el historial (el último precio incluido, que no tiene fin) sin encontrar
+        // solapamiento
+        updatedFirst = copyWithValue(history.getFirst());
+        updatedLast = copyWithValue(history.getLast());
+        if (PriceService.overlapsAny(updatedFirst, history) || PriceService.overlapsAny(updatedLast, history)) {
+            throw new IllegalStateException("El historial de la prueba no debería tener solapamientos");
+        }
+    }
+
+    @Benchmark
+    public boolean updateOldestPrice() {
+        return PriceService.overlapsAny(updatedFirst, history);
+    }
+
+    @Benchmark
+    public boolean updateCurrentPrice() {
+        return PriceService.overlapsAny(updatedLast, history);
+    }
+
+    private static Price copyWithValue(Price price) {
+        return Price.builder()
+                .id(price.getId())
+                .product(price.getProduct())
+                .value(BigDecimal.valueOf(9999, 2))
+                .initDate(price.getInitDate())
+                .endDate(price.getEndDate())
+                .build();
+    }
+}
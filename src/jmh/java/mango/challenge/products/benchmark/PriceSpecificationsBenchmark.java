@@ -0,0 +1,47 @@
+package mango.challenge.products.benchmark;
+
+import mango.challenge.products.model.Price;
+import mango.challenge.products.specifications.PriceSpecifications;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Mide la composición de la Specification que construye PriceService.getPrices en cada petición.
+// La traducción a SQL depende del CriteriaBuilder de Hibernate y queda cubierta por el harness de carga.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceSpecificationsBenchmark {
+
+    private final LocalDate date = LocalDate.of(2025, 5, 1);
+    private final LocalDate fromDate = LocalDate.of(2025, 1, 1);
+    private final LocalDate toDate = LocalDate.of(2025, 12, 31);
+    private final BigDecimal minValue = BigDecimal.TEN;
+    private final BigDecimal maxValue = BigDecimal.valueOf(500);
+
+    @Benchmark
+    public Specification<Price> composeWithoutFilters() {
+        return compose(1L, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public Specification<Price> composeWithAllFilters() {
+        return compose(1L, date, fromDate, toDate, minValue, maxValue);
+    }
+
+    private static Specification<Price> compose(Long productId, LocalDate date, LocalDate fromDate, LocalDate toDate,
+                                                BigDecimal minValue, BigDecimal maxValue) {
+        return PriceSpecifications.hasProduct(productId)
+                .and(PriceSpecifications.matchesDate(date))
+                .and(PriceSpecifications.fromDate(fromDate))
+                .and(PriceSpecifications.toDate(toDate))
+                .and(PriceSpecifications.minValue(minValue))
+                .and(PriceSpecifications.maxValue(maxValue));
+    }
+}
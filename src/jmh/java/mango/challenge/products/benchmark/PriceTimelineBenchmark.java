@@ -0,0 +1,67 @@
+package mango.challenge.products.benchmark;
+
+import mango.challenge.products.cache.CountMinSketch;
+import mango.challenge.products.cache.PriceTimeline;
+import mango.challenge.products.dto.PriceResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceTimelineBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int historySize;
+
+    private List<PriceResponse> history;
+    private PriceTimeline timeline;
+    private long firstDay;
+    private long lastDay;
+    private final CountMinSketch sketch = new CountMinSketch(4, 65536);
+
+    @Setup
+    public void setUp() {
+        history = BenchmarkData.weeklyHistory(BenchmarkData.product(1L), historySize).stream()
+                .map(PriceResponse::new)
+                .toList();
+        timeline = PriceTimeline.of(history);
+        firstDay = history.getFirst().getInitDate().toEpochDay();
+        lastDay = history.getLast().getInitDate().toEpochDay() + 7;
+    }
+
+    // Búsqueda binaria sobre el historial fijado en memoria
+    @Benchmark
+    public Optional<PriceResponse> timelineLookup() {
+        return timeline.priceAt(randomDate());
+    }
+
+    // Referencia: recorrido lineal del historial, como haría una caché de listas sin índice
+    @Benchmark
+    public Optional<PriceResponse> linearScan() {
+        LocalDate date = randomDate();
+        return history.stream()
+                .filter(price -> !price.getInitDate().isAfter(date)
+                        && (price.getEndDate() == null || !price.getEndDate().isBefore(date)))
+                .findFirst();
+    }
+
+    // Coste por petición de alimentar el top-K
+    @Benchmark
+    @Threads(4)
+    public int sketchAdd() {
+        return sketch.add(ThreadLocalRandom.current().nextLong(1_000_000));
+    }
+
+    private LocalDate randomDate() {
+        return LocalDate.ofEpochDay(ThreadLocalRandom.current().nextLong(firstDay, lastDay));
+    }
+}
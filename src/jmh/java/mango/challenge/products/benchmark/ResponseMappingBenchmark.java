@@ -0,0 +1,94 @@
+package mango.challenge.products.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import mango.challenge.products.dto.FieldsetPage;
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.dto.ProductResponse;
+import mango.challenge.products.model.Price;
+import mango.challenge.products.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    @Param({"20", "1000"})
+    private int pageSize;
+
+    // Misma configuración que el ObjectMapper de Spring Boot para fechas (ISO, no timestamps)
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private List<Price> prices;
+    private List<Product> products;
+    private Page<PriceResponse> pricePage;
+    private FieldsetPage prunedPricePage;
+    private List<ProductResponse> productResponses;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        prices = BenchmarkData.weeklyHistory(BenchmarkData.product(1L), pageSize);
+        products = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            products.add(BenchmarkData.product(id));
+        }
+        pricePage = new PageImpl<>(mapPrices(), PageRequest.of(0, pageSize), pageSize * 10L);
+        productResponses = mapProducts();
+
+        // Equivalente a fields=value,initDate&totals=false
+        List<Map<String, Object>> prunedContent = new ArrayList<>(pageSize);
+        for (Price price : prices) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("value", price.getValue());
+            row.put("initDate", price.getInitDate());
+            prunedContent.add(row);
+        }
+        prunedPricePage = FieldsetPage.builder().content(prunedContent).page(0).size(pageSize).hasNext(true).build();
+
+        System.out.printf("%nPágina de %d precios: completa %d bytes, fields=value,initDate %d bytes%n",
+                pageSize, serializePricePage().length, serializePrunedPricePage().length);
+    }
+
+    @Benchmark
+    public List<PriceResponse> mapPrices() {
+        return prices.stream().map(PriceResponse::new).toList();
+    }
+
+    @Benchmark
+    public List<ProductResponse> mapProducts() {
+        return products.stream().map(ProductResponse::new).toList();
+    }
+
+    @Benchmark
+    public byte[] serializePricePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(pricePage);
+    }
+
+    @Benchmark
+    public byte[] serializePrunedPricePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(prunedPricePage);
+    }
+
+    @Benchmark
+    public byte[] serializeProducts() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productResponses);
+    }
+}
@@ -0,0 +1,58 @@
+package mango.challenge.products.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import mango.challenge.products.config.CompactCborHttpMessageConverter;
+import mango.challenge.products.dto.PriceResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coste de CPU de serializar una página de precios en JSON frente al formato CBOR compacto.
+// El tamaño de cada payload se muestra al preparar el benchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"20", "1000"})
+    private int pageSize;
+
+    private final ObjectMapper jsonMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final ObjectMapper compactMapper = CompactCborHttpMessageConverter.createObjectMapper();
+
+    private Page<PriceResponse> page;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<PriceResponse> content = BenchmarkData.weeklyHistory(BenchmarkData.product(1L), pageSize).stream()
+                .map(PriceResponse::new)
+                .toList();
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), pageSize * 10L);
+
+        System.out.printf("%nTamaño de página con %d precios: JSON %d bytes, CBOR compacto %d bytes%n",
+                pageSize, json().length, compactCbor().length);
+    }
+
+    @Benchmark
+    public byte[] json() throws Exception {
+        return jsonMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] compactCbor() throws Exception {
+        return compactMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,270 @@
+package mango.challenge.products.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reproduce una mezcla configurable de llamadas a los endpoints de productos y precios con un número fijo
+ * de clientes concurrentes y muestra throughput y percentiles de latencia por escenario.
+ * <p>
+ * Ejemplo de mezcla: {@code --mix=getProduct:20,priceAt:50,listPrices:20,addPrice:10}
+ * <p>
+ * Durante la medición se muestrean cada {@code sampleInterval} las métricas de actuator de hilos y de los pools
+ * JDBC (Hikari) y R2DBC, y al final se muestran su pico y su valor final. Lanzando la misma carga con
+ * {@code --mix=priceAt:100} y con {@code --mix=reactivePriceAt:100} se comparan ambos stacks.
+ */
+public class LoadDriver {
+
+    private static final List<ServerMetric> SERVER_METRICS = List.of(
+            new ServerMetric("jvm.threads.live", "hilos vivos"),
+            new ServerMetric("jvm.threads.peak", "hilos (pico desde el arranque)"),
+            new ServerMetric("hikaricp.connections.active", "conexiones JDBC activas"),
+            new ServerMetric("hikaricp.connections.pending", "peticiones esperando conexión JDBC"),
+            new ServerMetric("r2dbc.pool.acquired", "conexiones R2DBC en uso"),
+            new ServerMetric("r2dbc.pool.allocated", "conexiones R2DBC abiertas"),
+            new ServerMetric("r2dbc.pool.pending", "peticiones esperando conexión R2DBC"));
+
+    // Primer valor de "measurements" en la respuesta de /actuator/metrics/{nombre}
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([-+0-9.eE]+)");
+
+    private final String baseUrl;
+    private final long maxProductId;
+    private final boolean skewed;
+    private final Duration sampleInterval;
+    private final HttpClient httpClient;
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private final Map<String, Double> peakMetrics = new ConcurrentHashMap<>();
+    private int totalWeight;
+
+    LoadDriver(LoadTestOptions options) {
+        this.baseUrl = options.get("baseUrl", "http://localhost:8080");
+        this.maxProductId = options.getLong("products", 1_000_000);
+        this.skewed = "skewed".equals(options.get("distribution", "skewed"));
+        this.sampleInterval = options.getDuration("sampleInterval", Duration.ofSeconds(1));
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        for (String entry : options.get("mix", "getProduct:20,priceAt:50,listPrices:20,addPrice:10").split(",")) {
+            String[] parts = entry.split(":");
+            int weight = Integer.parseInt(parts[1]);
+            scenarios.add(new Scenario(ScenarioType.valueOf(parts[0]), weight));
+            totalWeight += weight;
+        }
+    }
+
+    public static void main(String[] args) {
+        LoadTestOptions options = new LoadTestOptions(args);
+        LoadDriver driver = new LoadDriver(options);
+        driver.run(options.getInt("concurrency", 64),
+                options.getDuration("warmup", Duration.ofSeconds(10)),
+                options.getDuration("duration", Duration.ofSeconds(60)));
+    }
+
+    void run(int concurrency, Duration warmup, Duration duration) {
+        System.out.printf("Calentamiento durante %s con %d clientes...%n", warmup, concurrency);
+        runClients(concurrency, warmup);
+        scenarios.forEach(Scenario::reset);
+
+        System.out.printf("Midiendo durante %s con %d clientes...%n", duration, concurrency);
+        long started = System.nanoTime();
+        Thread sampler = Thread.ofVirtual().name("server-metrics").start(this::sampleServerMetrics);
+        runClients(concurrency, duration);
+        sampler.interrupt();
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        report(elapsedSeconds);
+        reportServerResources();
+    }
+
+    private void runClients(int concurrency, Duration duration) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        pickScenario().execute();
+                    }
+                });
+            }
+        }
+    }
+
+    private Scenario pickScenario() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            ticket -= scenario.weight;
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+        return scenarios.getLast();
+    }
+
+    // Con la distribución sesgada unos pocos productos concentran la mayoría de peticiones, como en producción
+    private long pickProductId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (!skewed) {
+            return 1 + random.nextLong(maxProductId);
+        }
+        return Math.max(1, Math.min(maxProductId, (long) Math.pow(maxProductId, random.nextDouble())));
+    }
+
+    private static LocalDate randomDate() {
+        return LocalDate.of(2015, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(4000));
+    }
+
+    private HttpRequest buildRequest(ScenarioType type) {
+        long productId = pickProductId();
+        String prices = baseUrl + "/v1/products/" + productId + "/prices";
+        return switch (type) {
+            case getProduct -> get(baseUrl + "/v1/products/" + productId);
+            case listPrices -> get(prices + "?page=0&size=20");
+            case listPriceFields -> get(prices + "?page=0&size=20&fields=value,initDate&totals=false");
+            case priceAt -> get(prices + "?date=" + randomDate());
+            case reactivePriceAt -> get(baseUrl + "/v1/reactive/products/" + productId + "/prices?date=" + randomDate());
+            case reactiveHistory -> get(baseUrl + "/v1/reactive/products/" + productId + "/prices");
+            case addPrice -> {
+                LocalDate initDate = LocalDate.of(2030, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(20_000));
+                String body = """
+                        {"value": %d.99, "initDate": "%s", "endDate": "%s"}
+                        """.formatted(1 + ThreadLocalRandom.current().nextInt(500), initDate, initDate.plusDays(1));
+                yield HttpRequest.newBuilder(URI.create(prices))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+        };
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    private void report(double elapsedSeconds) {
+        System.out.printf("%n%-16s %10s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+                "escenario", "peticiones", "4xx", "errores", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Scenario scenario : scenarios) {
+            Histogram histogram = scenario.latencies.getIntervalHistogram();
+            System.out.printf("%-16s %10d %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    scenario.type,
+                    histogram.getTotalCount(),
+                    scenario.clientErrors.get(),
+                    scenario.errors.get(),
+                    histogram.getTotalCount() / elapsedSeconds,
+                    histogram.getValueAtPercentile(50) / 1e6,
+                    histogram.getValueAtPercentile(90) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getValueAtPercentile(99.9) / 1e6,
+                    histogram.getMaxValue() / 1e6);
+        }
+    }
+
+    // Los valores instantáneos (conexiones en uso, peticiones en espera) solo tienen sentido bajo carga,
+    // así que se guarda el máximo observado durante la medición
+    private void sampleServerMetrics() {
+        while (!Thread.currentThread().isInterrupted()) {
+            for (ServerMetric metric : SERVER_METRICS) {
+                readMetric(metric.name()).ifPresent(value -> peakMetrics.merge(metric.name(), value, Math::max));
+            }
+            try {
+                Thread.sleep(sampleInterval);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private OptionalDouble readMetric(String metric) {
+        try {
+            HttpResponse<String> response = httpClient.send(get(baseUrl + "/actuator/metrics/" + metric),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = METRIC_VALUE.matcher(response.body());
+            if (response.statusCode() == 200 && matcher.find()) {
+                return OptionalDouble.of(Double.parseDouble(matcher.group(1)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ignored) {
+            // El servicio no expone esa métrica
+        }
+        return OptionalDouble.empty();
+    }
+
+    // Las métricas que el servicio no expone (p. ej. r2dbc.pool.* con sharding) no se muestran
+    private void reportServerResources() {
+        System.out.printf("%n%-40s %10s %10s%n", "recurso del servicio", "pico", "final");
+        for (ServerMetric metric : SERVER_METRICS) {
+            Double peak = peakMetrics.get(metric.name());
+            OptionalDouble current = readMetric(metric.name());
+            if (peak == null && current.isEmpty()) {
+                continue;
+            }
+            System.out.printf("%-40s %10s %10s%n", metric.label(),
+                    peak != null ? "%.0f".formatted(peak) : "-",
+                    current.isPresent() ? "%.0f".formatted(current.getAsDouble()) : "-");
+        }
+    }
+
+    private record ServerMetric(String name, String label) {
+    }
+
+    private enum ScenarioType {
+        getProduct, listPrices, listPriceFields, priceAt, reactivePriceAt, reactiveHistory, addPrice
+    }
+
+    private final class Scenario {
+        private final ScenarioType type;
+        private final int weight;
+        private final Recorder latencies = new Recorder(3);
+        private final AtomicLong clientErrors = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        private Scenario(ScenarioType type, int weight) {
+            this.type = type;
+            this.weight = weight;
+        }
+
+        private void execute() {
+            HttpRequest request = buildRequest(type);
+            long started = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                latencies.recordValue(System.nanoTime() - started);
+                if (response.statusCode() >= 500) {
+                    errors.incrementAndGet();
+                } else if (response.statusCode() >= 400) {
+                    // 404 de productos inexistentes o 400 por solapamiento: respuestas válidas de negocio
+                    clientErrors.incrementAndGet();
+                }
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+        }
+
+        private void reset() {
+            latencies.reset();
+            clientErrors.set(0);
+            errors.set(0);
+        }
+    }
+}
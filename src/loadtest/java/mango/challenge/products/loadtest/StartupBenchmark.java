@@ -0,0 +1,144 @@
+package mango.challenge.products.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arranca el servicio varias veces en cada modo y mide el tiempo desde el lanzamiento del proceso hasta la primera
+ * respuesta correcta y la latencia de esa primera petición, que paga la inicialización perezosa (DispatcherServlet,
+ * primera consulta de Hibernate, serializadores de Jackson).
+ * <p>
+ * Modos: {@code jit} (jar sin AOT), {@code aot}, {@code cds} (AOT + AppCDS) y {@code crac} (restauración del
+ * checkpoint). Los modos cuyo artefacto no existe se omiten.
+ */
+public class StartupBenchmark {
+
+    private static final long POLL_INTERVAL_MILLIS = 5;
+
+    private final LoadTestOptions options;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+    private final URI probeUri;
+    private final Duration timeout;
+
+    StartupBenchmark(LoadTestOptions options) {
+        this.options = options;
+        this.probeUri = URI.create(options.get("baseUrl", "http://localhost:8080")
+                + options.get("path", "/v1/products/1/prices?date=2025-01-01"));
+        this.timeout = options.getDuration("timeout", Duration.ofSeconds(120));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = new LoadTestOptions(args);
+        new StartupBenchmark(options).run(options.get("modes", "jit,aot,cds,crac").split(","), options.getInt("runs", 5));
+    }
+
+    void run(String[] modes, int runs) throws Exception {
+        System.out.printf("%-6s %6s %22s %22s%n", "modo", "runs", "primera respuesta (ms)", "primera petición (ms)");
+        for (String mode : modes) {
+            List<String> command = command(mode.trim());
+            if (command == null) {
+                System.out.printf("%-6s omitido: no se ha generado su artefacto%n", mode);
+                continue;
+            }
+            List<Sample> samples = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                samples.add(measure(command));
+            }
+            report(mode, samples);
+        }
+    }
+
+    private List<String> command(String mode) {
+        String java = options.get("java", "java");
+        String jar = options.get("jar", "build/fast-startup/app/products-0.0.1-SNAPSHOT.jar");
+        return switch (mode) {
+            case "jit" -> List.of(java, "-jar", jar);
+            case "aot" -> List.of(java, "-Dspring.aot.enabled=true", "-jar", jar);
+            case "cds" -> {
+                String archive = options.get("cdsArchive", "build/fast-startup/app.jsa");
+                yield Files.exists(Path.of(archive))
+                        ? List.of(java, "-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true", "-jar", jar)
+                        : null;
+            }
+            case "crac" -> {
+                String cracDir = options.get("cracDir", "build/fast-startup/crac");
+                String cracJava = options.get("cracJava", null);
+                yield cracJava != null && Files.isDirectory(Path.of(cracDir))
+                        ? List.of(cracJava, "-XX:CRaCRestoreFrom=" + cracDir)
+                        : null;
+            }
+            default -> throw new IllegalArgumentException("Modo de arranque desconocido: " + mode);
+        };
+    }
+
+    private Sample measure(List<String> command) throws Exception {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("build/startup-benchmark.log")))
+                .start();
+        long launched = System.nanoTime();
+        try {
+            long deadline = launched + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("El proceso ha terminado antes de responder (código "
+                            + process.exitValue() + "), ver build/startup-benchmark.log");
+                }
+                long sent = System.nanoTime();
+                if (probe()) {
+                    long received = System.nanoTime();
+                    return new Sample(received - launched, received - sent);
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+            throw new IllegalStateException("Sin respuesta correcta tras " + timeout);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // Mientras el puerto no está abierto la conexión se rechaza al instante y el intento no cuenta como petición
+    private boolean probe() throws InterruptedException {
+        try {
+            HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(probeUri).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void report(String mode, List<Sample> samples) {
+        long[] firstResponse = samples.stream().mapToLong(Sample::sinceLaunchNanos).sorted().toArray();
+        long[] firstRequest = samples.stream().mapToLong(Sample::requestNanos).sorted().toArray();
+        System.out.printf("%-6s %6d %22s %22s%n", mode, samples.size(), summary(firstResponse), summary(firstRequest));
+    }
+
+    // Mediana (mínimo-máximo)
+    private static String summary(long[] sortedNanos) {
+        return String.format("%d (%d-%d)", millis(sortedNanos[sortedNanos.length / 2]),
+                millis(sortedNanos[0]), millis(sortedNanos[sortedNanos.length - 1]));
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private record Sample(long sinceLaunchNanos, long requestNanos) {
+    }
+}
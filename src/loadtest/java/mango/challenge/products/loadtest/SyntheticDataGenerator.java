@@ -0,0 +1,139 @@
+package mango.challenge.products.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Puebla una base de datos PostgreSQL local con productos y precios sintéticos mediante COPY.
+ * <p>
+ * Cada producto recibe un historial de precios consecutivos de duración variable, con huecos
+ * ocasionales entre precios y, en la mayoría de los casos, un último precio abierto (sin endDate).
+ */
+public class SyntheticDataGenerator {
+
+    private static final int COPY_BUFFER_ROWS = 10_000;
+
+    private final long products;
+    private final double pricesPerProduct;
+    private final double gapProbability;
+    private final double openEndedProbability;
+    private final LocalDate historyStart;
+    private final SplittableRandom random;
+
+    SyntheticDataGenerator(LoadTestOptions options) {
+        this.products = options.getLong("products", 1_000_000);
+        this.pricesPerProduct = options.getDouble("pricesPerProduct", 50);
+        this.gapProbability = options.getDouble("gapProbability", 0.1);
+        this.openEndedProbability = options.getDouble("openEndedProbability", 0.8);
+        this.historyStart = LocalDate.parse(options.get("historyStart", "2015-01-01"));
+        this.random = new SplittableRandom(options.getLong("seed", 42));
+    }
+
+    public static void main(String[] args) throws SQLException {
+        LoadTestOptions options = new LoadTestOptions(args);
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(options);
+
+        try (Connection connection = DriverManager.getConnection(
+                options.get("url", "jdbc:postgresql://localhost:5432/productsdb"),
+                options.get("username", "postgres"),
+                options.get("password", "postgres"))) {
+
+            if (options.getBoolean("truncate", false)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("TRUNCATE prices, products RESTART IDENTITY CASCADE");
+                }
+            }
+            generator.seed(connection);
+        }
+    }
+
+    void seed(Connection connection) throws SQLException {
+        long firstProductId = nextProductId(connection);
+        long started = System.nanoTime();
+        long priceRows = 0;
+
+        CopyIn productCopy = copyIn(connection, "COPY products (id, name, description) FROM STDIN WITH (FORMAT csv)");
+        StringBuilder productRows = new StringBuilder();
+        for (long id = firstProductId; id < firstProductId + products; id++) {
+            productRows.append(id).append(",Producto ").append(id).append(",Producto sintético ").append(id).append('\n');
+            if ((id - firstProductId + 1) % COPY_BUFFER_ROWS == 0) {
+                write(productCopy, productRows);
+            }
+        }
+        write(productCopy, productRows);
+        productCopy.endCopy();
+        System.out.printf("Insertados %,d productos%n", products);
+
+        CopyIn priceCopy = copyIn(connection, "COPY prices (product_id, value, init_date, end_date) FROM STDIN WITH (FORMAT csv)");
+        StringBuilder priceBuffer = new StringBuilder();
+        int bufferedRows = 0;
+        for (long id = firstProductId; id < firstProductId + products; id++) {
+            int historySize = historySize();
+            LocalDate initDate = historyStart.plusDays(random.nextInt(365));
+            long cents = 500 + random.nextInt(50_000);
+
+            for (int i = 0; i < historySize; i++) {
+                boolean last = i == historySize - 1;
+                LocalDate endDate = initDate.plusDays(1 + random.nextInt(180));
+                boolean openEnded = last && random.nextDouble() < openEndedProbability;
+
+                priceBuffer.append(id).append(',')
+                        .append(cents / 100).append('.').append(String.format("%02d", cents % 100)).append(',')
+                        .append(initDate).append(',')
+                        .append(openEnded ? "" : endDate.toString()).append('\n');
+
+                cents = Math.max(1, cents + random.nextLong(-cents / 10 - 1, cents / 10 + 2));
+                initDate = endDate.plusDays(random.nextDouble() < gapProbability ? 2 + random.nextInt(60) : 1);
+
+                if (++bufferedRows == COPY_BUFFER_ROWS) {
+                    write(priceCopy, priceBuffer);
+                    bufferedRows = 0;
+                }
+            }
+            priceRows += historySize;
+        }
+        write(priceCopy, priceBuffer);
+        priceCopy.endCopy();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT setval(pg_get_serial_sequence('products', 'id'), (SELECT max(id) FROM products))");
+            statement.execute("ANALYZE products");
+            statement.execute("ANALYZE prices");
+        }
+
+        System.out.printf("Insertados %,d precios en %d s%n", priceRows, (System.nanoTime() - started) / 1_000_000_000);
+    }
+
+    // Distribución geométrica con la media configurada: muchos productos con poco historial y una cola larga
+    private int historySize() {
+        double p = 1.0 / Math.max(1.0, pricesPerProduct);
+        return 1 + (int) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+
+    private static long nextProductId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(max(id), 0) + 1 FROM products")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static CopyIn copyIn(Connection connection, String sql) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+    }
+
+    private static void write(CopyIn copy, StringBuilder rows) throws SQLException {
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+}
@@ -1,12 +1,19 @@
 package mango.challenge.products;
 
+import mango.challenge.products.migration.MigrationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 public class ProductsApplication {
 
 	public static void main(String[] args) {
+		if (args.length > 0 && MigrationRunner.COMMAND.equals(args[0])) {
+			MigrationRunner.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		SpringApplication.run(ProductsApplication.class, args);
 	}
 
@@ -0,0 +1,176 @@
+package mango.challenge.products.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.sharding.ScatterGather;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Precarga de cachés al arrancar, en paralelo ({@code concurrency} tareas a la vez) y con un tiempo máximo
+ * ({@code budget}):
+ * <ul>
+ *     <li>el mapa de productos existentes de {@link ProductExistenceCache}, por rangos de ids;</li>
+ *     <li>los historiales de precios de los productos con más cambios en los últimos {@code timeline-months} meses
+ *     (según {@code price_monthly_rollups}), que entran en el top-K de {@link HotProductTracker} con el peso de una
+ *     sola consulta: el tráfico real los desplaza en cuanto empieza.</li>
+ * </ul>
+ * Se ejecuta como {@link ApplicationRunner}: Spring Boot no publica {@code ReadinessState.ACCEPTING_TRAFFIC} hasta
+ * que terminan los runners, así que la réplica no se declara lista hasta que acaba la precarga o se agota el tiempo.
+ * Lo que no llegue a cargarse se sigue resolviendo en base de datos.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheWarmUp implements ApplicationRunner {
+
+    private static final int TIMELINE_BATCH_SIZE = 100;
+
+    private static final String ACTIVE_PRODUCTS_SQL = """
+            SELECT r.product_id, SUM(r.changes) AS changes
+            FROM price_monthly_rollups r
+            JOIN products p ON p.id = r.product_id AND p.deleted_at IS NULL
+            WHERE r.month >= ?
+            GROUP BY r.product_id
+            ORDER BY changes DESC
+            LIMIT ?
+            """;
+
+    private final ProductExistenceCache productExistenceCache;
+    private final PriceTimelineCache priceTimelineCache;
+    private final HotProductTracker hotProductTracker;
+    private final ScatterGather scatterGather;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int concurrency;
+    private final Duration budget;
+    private final int timelineMonths;
+    private final Progress products = new Progress();
+    private final Progress timelines = new Progress();
+
+    public CacheWarmUp(ProductExistenceCache productExistenceCache,
+                       PriceTimelineCache priceTimelineCache,
+                       HotProductTracker hotProductTracker,
+                       ScatterGather scatterGather,
+                       JdbcTemplate jdbcTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.warm-up.concurrency:4}") int concurrency,
+                       @Value("${app.warm-up.budget:30s}") Duration budget,
+                       @Value("${app.warm-up.timeline-months:3}") int timelineMonths) {
+        this.productExistenceCache = productExistenceCache;
+        this.priceTimelineCache = priceTimelineCache;
+        this.hotProductTracker = hotProductTracker;
+        this.scatterGather = scatterGather;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.concurrency = concurrency;
+        this.budget = budget;
+        this.timelineMonths = timelineMonths;
+        Gauge.builder("cache.warmup.coverage", products, Progress::coverage).tag("cache", "products").register(meterRegistry);
+        Gauge.builder("cache.warmup.coverage", timelines, Progress::coverage).tag("cache", "timelines").register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        long deadline = started + budget.toNanos();
+        String outcome;
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+                Thread.ofPlatform().name("cache-warm-up-", 1).daemon(true).factory());
+        ProductExistenceCache.Load load = productExistenceCache.startLoad();
+        try {
+            for (ProductExistenceCache.IdRange range : productExistenceCache.ranges()) {
+                products.total.incrementAndGet();
+                executor.execute(() -> task(deadline, products, () -> productExistenceCache.load(load, range)));
+            }
+            List<Long> active = activeProducts();
+            active.forEach(hotProductTracker::record);
+            for (int from = 0; from < active.size(); from += TIMELINE_BATCH_SIZE) {
+                List<Long> batch = active.subList(from, Math.min(active.size(), from + TIMELINE_BATCH_SIZE));
+                timelines.total.incrementAndGet();
+                executor.execute(() -> task(deadline, timelines, () -> priceTimelineCache.preload(batch)));
+            }
+            executor.shutdown();
+            outcome = executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+                    ? "completed" : "budget_exceeded";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+        } catch (RuntimeException e) {
+            log.warn("Falló la precarga de cachés, se arranca con lo cargado hasta ahora", e);
+            outcome = "failed";
+        } finally {
+            executor.shutdownNow();
+            productExistenceCache.finish(load);
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        Timer.builder("cache.warmup.duration").tag("outcome", outcome).register(meterRegistry).record(elapsed);
+        log.info("Precarga de cachés ({}) en {} ms: {} productos existentes ({}% de los rangos), {} historiales de "
+                        + "precios ({}% de los lotes)", outcome, elapsed.toMillis(), productExistenceCache.size(),
+                Math.round(products.coverage() * 100), priceTimelineCache.size(), Math.round(timelines.coverage() * 100));
+    }
+
+    // Los productos con más cambios de precio de todos los shards, como mucho tantos como caben en el top-K. Si la
+    // consulta falla se precarga solo el mapa de productos
+    private List<Long> activeProducts() {
+        int limit = hotProductTracker.getCapacity();
+        Date since = Date.valueOf(YearMonth.now().minusMonths(timelineMonths - 1L).atDay(1));
+        try {
+            return scatterGather.onAllShards(() -> jdbcTemplate.query(ACTIVE_PRODUCTS_SQL,
+                            (rs, rowNum) -> new ActiveProduct(rs.getLong("product_id"), rs.getLong("changes")), since, limit))
+                    .stream()
+                    .sorted(Comparator.comparingLong(ActiveProduct::changes).reversed())
+                    .limit(limit)
+                    .map(ActiveProduct::productId)
+                    .toList();
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron elegir los historiales de precios a precargar: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    // Las tareas que empiezan con el tiempo agotado no hacen nada; un fallo solo deja su parte sin cargar
+    private static void task(long deadline, Progress progress, Runnable action) {
+        if (System.nanoTime() - deadline >= 0) {
+            return;
+        }
+        try {
+            action.run();
+            progress.done.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("Falló una tarea de precarga: {}", e.getMessage());
+        }
+    }
+
+    private record ActiveProduct(long productId, long changes) {
+    }
+
+    private static final class Progress {
+
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger done = new AtomicInteger();
+
+        double coverage() {
+            int all = total.get();
+            return all == 0 ? 1.0 : (double) done.get() / all;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package mango.challenge.products.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Estimación de frecuencias en memoria fija ({@code depth} x {@code width} contadores). La estimación de un id nunca
+ * es menor que su frecuencia real y la sobreestimación está acotada por las colisiones de la fila menos cargada.
+ * Es seguro para uso concurrente; {@link #halve()} envejece las frecuencias para que el conjunto refleje el
+ * tráfico reciente.
+ */
+public class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L
+    };
+
+    private final int depth;
+    private final int widthMask;
+    private final AtomicIntegerArray counters;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("depth debe estar entre 1 y " + SEEDS.length);
+        }
+        if (width < 1 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width debe ser una potencia de 2");
+        }
+        this.depth = depth;
+        this.widthMask = width - 1;
+        this.counters = new AtomicIntegerArray(depth * width);
+    }
+
+    // Suma una aparición y devuelve la nueva estimación
+    public int add(long id) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, id)));
+        }
+        return estimate;
+    }
+
+    public int estimate(long id) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, id)));
+        }
+        return estimate;
+    }
+
+    // Los incrementos concurrentes con el envejecimiento pueden perderse, lo que no afecta al orden de los más frecuentes
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+    }
+
+    private int index(int row, long id) {
+        long hash = (id ^ SEEDS[row]) * 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 31;
+        hash *= 0x94D049BB133111EBL;
+        hash ^= hash >>> 29;
+        return row * (widthMask + 1) + (int) (hash & widthMask);
+    }
+}
@@ -0,0 +1,74 @@
+package mango.challenge.products.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Top-K de los productos más consultados. Cada petición suma en un {@link CountMinSketch} y el producto entra como
+ * candidato si su estimación alcanza la del último del top-K anterior; los candidatos se recortan a K cuando
+ * duplican ese tamaño, así que la memoria no depende del número de productos.
+ */
+@Component
+public class HotProductTracker {
+
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final Map<Long, Integer> candidates = new ConcurrentHashMap<>();
+    private volatile int admissionThreshold;
+
+    public HotProductTracker(@Value("${app.hot-products.capacity:2000}") int capacity,
+                             @Value("${app.hot-products.sketch-depth:4}") int sketchDepth,
+                             @Value("${app.hot-products.sketch-width:65536}") int sketchWidth) {
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(sketchDepth, sketchWidth);
+    }
+
+    public void record(long productId) {
+        int estimate = sketch.add(productId);
+        if (estimate >= admissionThreshold) {
+            candidates.put(productId, estimate);
+            if (candidates.size() > 2 * capacity) {
+                trim();
+            }
+        }
+    }
+
+    // Productos del top-K ordenados de mayor a menor frecuencia estimada
+    public List<HotProduct> hotProducts() {
+        return trim();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Scheduled(fixedRateString = "${app.hot-products.decay-interval:60s}")
+    public void decay() {
+        sketch.halve();
+        candidates.replaceAll((productId, estimate) -> estimate >>> 1);
+        admissionThreshold >>>= 1;
+    }
+
+    private synchronized List<HotProduct> trim() {
+        List<HotProduct> ranked = new ArrayList<>(candidates.size());
+        candidates.forEach((productId, estimate) -> ranked.add(new HotProduct(productId, estimate)));
+        ranked.sort(Comparator.comparingInt(HotProduct::estimate).reversed());
+        if (ranked.size() <= capacity) {
+            return ranked;
+        }
+        List<HotProduct> top = List.copyOf(ranked.subList(0, capacity));
+        ranked.subList(capacity, ranked.size()).forEach(evicted -> candidates.remove(evicted.productId()));
+        admissionThreshold = top.getLast().estimate();
+        return top;
+    }
+
+    public record HotProduct(long productId, int estimate) {
+    }
+}
@@ -0,0 +1,39 @@
+package mango.challenge.products.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// GET /actuator/hotproducts: top-K actual con su frecuencia estimada y si su historial está fijado en memoria
+@Component
+@Endpoint(id = "hotproducts")
+@RequiredArgsConstructor
+public class HotProductsEndpoint {
+
+    private final HotProductTracker hotProductTracker;
+    private final PriceTimelineCache priceTimelineCache;
+
+    @ReadOperation
+    public Map<String, Object> hotProducts() {
+        List<Map<String, Object>> products = hotProductTracker.hotProducts().stream()
+                .map(product -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("productId", product.productId());
+                    entry.put("estimatedRequests", product.estimate());
+                    entry.put("pinned", priceTimelineCache.isPinned(product.productId()));
+                    return entry;
+                })
+                .toList();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("capacity", hotProductTracker.getCapacity());
+        body.put("pinned", priceTimelineCache.size());
+        body.put("products", products);
+        return body;
+    }
+}
@@ -0,0 +1,66 @@
+package mango.challenge.products.cache;
+
+import mango.challenge.products.dto.PriceResponse;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Historial completo de precios de un producto en memoria, ordenado por fecha de inicio. Como los precios de un
+ * producto no se solapan, el vigente en una fecha es el último que empieza antes o ese mismo día, si no ha
+ * terminado: una búsqueda binaria sobre los días de inicio.
+ * <p>
+ * Las respuestas se comparten entre peticiones y no deben modificarse.
+ */
+public final class PriceTimeline {
+
+    private final long[] initDays;
+    private final long[] endDays;
+    private final PriceResponse[] prices;
+    private final long loadedAtNanos;
+
+    private PriceTimeline(PriceResponse[] prices, long loadedAtNanos) {
+        this.prices = prices;
+        this.initDays = new long[prices.length];
+        this.endDays = new long[prices.length];
+        for (int i = 0; i < prices.length; i++) {
+            initDays[i] = prices[i].getInitDate().toEpochDay();
+            endDays[i] = prices[i].getEndDate() != null ? prices[i].getEndDate().toEpochDay() : Long.MAX_VALUE;
+        }
+        this.loadedAtNanos = loadedAtNanos;
+    }
+
+    public static PriceTimeline of(List<PriceResponse> prices) {
+        return of(prices, System.nanoTime());
+    }
+
+    // loadedAtNanos: instante en que empezó la lectura de los precios
+    static PriceTimeline of(List<PriceResponse> prices, long loadedAtNanos) {
+        PriceResponse[] sorted = prices.toArray(PriceResponse[]::new);
+        Arrays.sort(sorted, Comparator.comparing(PriceResponse::getInitDate));
+        return new PriceTimeline(sorted, loadedAtNanos);
+    }
+
+    public Optional<PriceResponse> priceAt(LocalDate date) {
+        long day = date.toEpochDay();
+        int index = Arrays.binarySearch(initDays, day);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        if (index < 0 || endDays[index] < day) {
+            return Optional.empty();
+        }
+        return Optional.of(prices[index]);
+    }
+
+    public int size() {
+        return prices.length;
+    }
+
+    long loadedAtNanos() {
+        return loadedAtNanos;
+    }
+}
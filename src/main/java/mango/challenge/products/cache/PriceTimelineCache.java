@@ -0,0 +1,149 @@
+package mango.challenge.products.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.event.PriceChangedEvent;
+import mango.challenge.products.event.ProductDeletedEvent;
+import mango.challenge.products.repository.PriceRepository;
+import mango.challenge.products.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Historiales de precios fijados en memoria para los productos del top-K de {@link HotProductTracker}; el resto de
+ * productos se sigue consultando en base de datos. Cada {@code refresh-interval} se cargan por adelantado los
+ * productos que entran en el top-K, se liberan los que salen y se recargan los que superan {@code max-staleness}.
+ * <p>
+ * Un cambio hecho en esta instancia suelta el historial tras el commit (hasta el siguiente refresh el producto se
+ * consulta en base de datos) y el refresh lo vuelve a cargar una sola vez por muchos cambios que haya recibido; los
+ * hechos en otras réplicas se ven como mucho {@code max-staleness} después.
+ */
+@Slf4j
+@Component
+public class PriceTimelineCache {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final PriceRepository priceRepository;
+    private final HotProductTracker hotProductTracker;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readTransaction;
+    private final Duration maxStaleness;
+    private final Map<Long, PriceTimeline> timelines = new ConcurrentHashMap<>();
+    // Último cambio confirmado por producto (System.nanoTime), para no fijar una lectura que empezó antes que él
+    private final Map<Long, Long> changedAt = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public PriceTimelineCache(PriceRepository priceRepository,
+                              HotProductTracker hotProductTracker,
+                              ShardRouter shardRouter,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.hot-products.max-staleness:30s}") Duration maxStaleness) {
+        this.priceRepository = priceRepository;
+        this.hotProductTracker = hotProductTracker;
+        this.shardRouter = shardRouter;
+        this.maxStaleness = maxStaleness;
+        // Transacción propia: el refresh y la precarga no corren dentro de ninguna
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        this.hits = Counter.builder("price.timeline.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("price.timeline.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("price.timeline.cache.products", timelines, Map::size).register(meterRegistry);
+    }
+
+    public Optional<PriceTimeline> get(long productId) {
+        PriceTimeline timeline = timelines.get(productId);
+        (timeline != null ? hits : misses).increment();
+        return Optional.ofNullable(timeline);
+    }
+
+    public boolean isPinned(long productId) {
+        return timelines.containsKey(productId);
+    }
+
+    public int size() {
+        return timelines.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.hot-products.refresh-interval:10s}")
+    public void refresh() {
+        Set<Long> hot = new HashSet<>();
+        hotProductTracker.hotProducts().forEach(product -> hot.add(product.productId()));
+        timelines.keySet().retainAll(hot);
+
+        long staleBefore = System.nanoTime() - maxStaleness.toNanos();
+        // Una lectura de hace más de max-staleness se recargaría igualmente, así que esos cambios ya no hacen falta
+        changedAt.values().removeIf(changed -> changed - staleBefore < 0);
+        List<Long> toLoad = new ArrayList<>();
+        for (Long productId : hot) {
+            PriceTimeline timeline = timelines.get(productId);
+            if (timeline == null || timeline.loadedAtNanos() - staleBefore < 0) {
+                toLoad.add(productId);
+            }
+        }
+        for (int from = 0; from < toLoad.size(); from += LOAD_BATCH_SIZE) {
+            load(toLoad.subList(from, Math.min(toLoad.size(), from + LOAD_BATCH_SIZE)));
+        }
+        if (!toLoad.isEmpty()) {
+            log.debug("Cargados {} historiales de precios, {} fijados en memoria", toLoad.size(), timelines.size());
+        }
+    }
+
+    // Carga por adelantado (arranque) de productos que ya están en el top-K; si no lo están, el siguiente refresh
+    // los libera
+    public void preload(Collection<Long> productIds) {
+        load(productIds);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        timelines.remove(event.productId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPriceChanged(PriceChangedEvent event) {
+        changedAt.put(event.productId(), System.nanoTime());
+        timelines.remove(event.productId());
+    }
+    // Se conserva la lectura que empezó más tarde y se descarta la que empezó antes del último cambio confirmado del
+    // producto; la comprobación va dentro de compute para que no se cuele entre ella y el remove de onPriceChanged
+    private void load(Collection<Long> productIds) {
+        Map<Long, List<PriceResponse>> byProduct = new HashMap<>();
+        productIds.forEach(productId -> byProduct.put(productId, new ArrayList<>()));
+        long readStarted = System.nanoTime();
+        shardRouter.partition(productIds, Long::longValue).forEach((shard, shardProductIds) -> shardRouter.runOn(shard,
+                () -> readTransaction.executeWithoutResult(status -> priceRepository.findTimelines(shardProductIds)
+                        .forEach(price -> byProduct.get(price.getProductId()).add(price)))));
+        byProduct.forEach((productId, prices) -> timelines.compute(productId, (id, current) -> {
+            Long changed = changedAt.get(id);
+            if (changed != null && changed - readStarted > 0) {
+                return current;
+            }
+            PriceTimeline loaded = PriceTimeline.of(prices, readStarted);
+            return current != null && current.loadedAtNanos() - loaded.loadedAtNanos() > 0 ? current : loaded;
+        }));
+    }
+}
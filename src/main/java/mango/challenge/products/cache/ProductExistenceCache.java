@@ -0,0 +1,208 @@
+package mango.challenge.products.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.event.ProductDeletedEvent;
+import mango.challenge.products.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ids de productos que se sabe que existen, en un mapa de bits (un bit por id: 125 KB por millón de ids). Solo
+ * guarda respuestas positivas: un id que no está se consulta en base de datos, así que una carga parcial o un
+ * producto creado en otra réplica nunca dan un 404 falso.
+ * <p>
+ * Un id en el mapa solo ahorra la consulta de existencia: las lecturas de precios filtran {@code deleted_at} en su
+ * propia consulta (o lo comprueban si responden desde memoria), así que un producto borrado en cualquier réplica deja
+ * de verse al instante. Los borrados de esta instancia se quitan del mapa al momento y otra vez tras el commit, por si
+ * una comprobación concurrente volvió a añadir el id; los de otras réplicas, en cuanto una lectura los encuentra o en
+ * la siguiente recarga del mapa por rangos de ids.
+ */
+@Slf4j
+@Component
+public class ProductExistenceCache {
+
+    // Ids mayores no se guardan (se consultan siempre): el mapa nunca pasa de 32 MB
+    static final long MAX_TRACKED_ID = 1L << 28;
+
+    private static final String BOUNDS_SQL =
+            "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM products WHERE deleted_at IS NULL";
+
+    private static final String RANGE_SQL =
+            "SELECT id FROM products WHERE id BETWEEN ? AND ? AND deleted_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final int rangeSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile Bitmap known = new Bitmap();
+    private volatile Load pending;
+
+    public ProductExistenceCache(JdbcTemplate jdbcTemplate,
+                                 ShardRouter shardRouter,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.product-existence.range-size:10000}") int rangeSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.rangeSize = rangeSize;
+        this.hits = Counter.builder("product.existence.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("product.existence.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("product.existence.cache.products", this, cache -> cache.known.cardinality()).register(meterRegistry);
+    }
+
+    public boolean contains(long productId) {
+        boolean found = known.contains(productId);
+        (found ? hits : misses).increment();
+        return found;
+    }
+
+    public void add(long productId) {
+        known.add(productId);
+    }
+
+    // Un borrado durante una recarga se aplica también al mapa nuevo, que puede haberlo leído antes
+    public synchronized void remove(long productId) {
+        known.remove(productId);
+        Load load = pending;
+        if (load != null) {
+            load.removed().add(productId);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        remove(event.productId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.product-existence.refresh-interval:60s}",
+            initialDelayString = "${app.product-existence.refresh-interval:60s}")
+    public void refresh() {
+        Load load = startLoad();
+        long loaded = 0;
+        for (IdRange range : ranges()) {
+            loaded += load(load, range);
+        }
+        finish(load);
+        log.debug("Recargados {} ids de productos existentes", loaded);
+    }
+
+    // Rangos de como mucho range-size ids que cubren los productos de cada shard
+    public List<IdRange> ranges() {
+        List<IdRange> ranges = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            Map<String, Object> bounds = shardRouter.callOn(shard, () -> jdbcTemplate.queryForMap(BOUNDS_SQL));
+            if (bounds.get("min_id") == null) {
+                continue;
+            }
+            long maxId = ((Number) bounds.get("max_id")).longValue();
+            for (long from = ((Number) bounds.get("min_id")).longValue(); from <= maxId; from += rangeSize) {
+                ranges.add(new IdRange(shard, from, Math.min(maxId, from + rangeSize - 1)));
+            }
+        }
+        return ranges;
+    }
+
+    public synchronized Load startLoad() {
+        Load load = new Load(new Bitmap(), ConcurrentHashMap.newKeySet());
+        pending = load;
+        return load;
+    }
+
+    // Se puede llamar desde varios hilos a la vez para la misma carga
+    public int load(Load load, IdRange range) {
+        List<Long> ids = shardRouter.callOn(range.shard(),
+                () -> jdbcTemplate.queryForList(RANGE_SQL, Long.class, range.fromId(), range.toId()));
+        load.bitmap().addAll(ids);
+        return ids.size();
+    }
+
+    // Publica la carga aunque esté incompleta: los ids que falten se consultan en base de datos
+    public synchronized void finish(Load load) {
+        load.removed().forEach(load.bitmap()::remove);
+        known = load.bitmap();
+        if (pending == load) {
+            pending = null;
+        }
+    }
+
+    public long size() {
+        return known.cardinality();
+    }
+
+    public record IdRange(int shard, long fromId, long toId) {
+    }
+
+    public record Load(Bitmap bitmap, Set<Long> removed) {
+    }
+
+    /**
+     * Mapa de bits que crece según el mayor id guardado. Las lecturas no bloquean; las escrituras, poco frecuentes
+     * fuera de las cargas, se serializan para que ningún bit se pierda al copiar el array al crecer.
+     */
+    static final class Bitmap {
+
+        private volatile AtomicLongArray words = new AtomicLongArray(0);
+
+        boolean contains(long id) {
+            AtomicLongArray current = words;
+            long word = id >>> 6;
+            return id >= 0 && word < current.length() && (current.get((int) word) & (1L << id)) != 0;
+        }
+
+        synchronized void add(long id) {
+            if (id >= 0 && id < MAX_TRACKED_ID) {
+                ensureCapacity(id);
+                words.getAndAccumulate((int) (id >>> 6), 1L << id, (word, bit) -> word | bit);
+            }
+        }
+
+        synchronized void addAll(List<Long> ids) {
+            ids.forEach(this::add);
+        }
+
+        synchronized void remove(long id) {
+            AtomicLongArray current = words;
+            long word = id >>> 6;
+            if (id >= 0 && word < current.length()) {
+                current.getAndAccumulate((int) word, ~(1L << id), (bits, mask) -> bits & mask);
+            }
+        }
+
+        long cardinality() {
+            AtomicLongArray current = words;
+            long count = 0;
+            for (int i = 0; i < current.length(); i++) {
+                count += Long.bitCount(current.get(i));
+            }
+            return count;
+        }
+
+        private void ensureCapacity(long id) {
+            int needed = (int) (id >>> 6) + 1;
+            AtomicLongArray current = words;
+            if (needed > current.length()) {
+                AtomicLongArray grown = new AtomicLongArray(
+                        (int) Math.min(MAX_TRACKED_ID >>> 6, Math.max(needed, current.length() * 3L / 2)));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                words = grown;
+            }
+        }
+    }
+}
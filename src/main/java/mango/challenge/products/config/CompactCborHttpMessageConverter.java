@@ -0,0 +1,108 @@
+package mango.challenge.products.config;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.dto.ProductResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Formato binario compacto para clientes internos, negociado con {@code Accept: application/vnd.mango.compact+cbor}.
+ * <p>
+ * CBOR con fechas como días desde epoch, importes como enteros en céntimos y precios/productos como arrays
+ * posicionales. El esquema publicado está en {@code /schema/compact-cbor.cddl}.
+ */
+public class CompactCborHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public static final MediaType COMPACT_CBOR = new MediaType("application", "vnd.mango.compact+cbor");
+
+    // Misma escala que la columna prices.value NUMERIC(10,2)
+    public static final int VALUE_SCALE = 2;
+
+    public CompactCborHttpMessageConverter() {
+        super(createObjectMapper(), COMPACT_CBOR);
+    }
+
+    public static ObjectMapper createObjectMapper() {
+        SimpleModule module = new SimpleModule("compact-cbor")
+                .addSerializer(LocalDate.class, new EpochDaySerializer())
+                .addDeserializer(LocalDate.class, new EpochDayDeserializer())
+                .addSerializer(BigDecimal.class, new FixedPointSerializer())
+                .addDeserializer(BigDecimal.class, new FixedPointDeserializer())
+                .addSerializer(Page.class, new PageSerializer());
+
+        return CBORMapper.builder()
+                .addModule(module)
+                .addMixIn(PriceResponse.class, PriceResponseLayout.class)
+                .addMixIn(ProductResponse.class, ProductResponseLayout.class)
+                .build();
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"id", "productId", "value", "initDate", "endDate"})
+    private abstract static class PriceResponseLayout {
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"id", "name", "description"})
+    private abstract static class ProductResponseLayout {
+    }
+
+    private static class EpochDaySerializer extends JsonSerializer<LocalDate> {
+        @Override
+        public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(value.toEpochDay());
+        }
+    }
+
+    private static class EpochDayDeserializer extends JsonDeserializer<LocalDate> {
+        @Override
+        public LocalDate deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return LocalDate.ofEpochDay(p.getLongValue());
+        }
+    }
+
+    private static class FixedPointSerializer extends JsonSerializer<BigDecimal> {
+        @Override
+        public void serialize(BigDecimal value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(value.setScale(VALUE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        }
+    }
+
+    private static class FixedPointDeserializer extends JsonDeserializer<BigDecimal> {
+        @Override
+        public BigDecimal deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return BigDecimal.valueOf(p.getLongValue(), VALUE_SCALE);
+        }
+    }
+
+    // Sustituye la serialización de PageImpl (pageable, sort, flags...) por los cuatro campos que usan los clientes
+    @SuppressWarnings("rawtypes")
+    private static class PageSerializer extends JsonSerializer<Page> {
+        @Override
+        public void serialize(Page page, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartObject();
+            serializers.defaultSerializeField("content", page.getContent(), gen);
+            gen.writeNumberField("page", page.getNumber());
+            gen.writeNumberField("size", page.getSize());
+            gen.writeNumberField("totalElements", page.getTotalElements());
+            gen.writeEndObject();
+        }
+    }
+}
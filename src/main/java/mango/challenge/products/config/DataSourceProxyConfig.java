@@ -0,0 +1,47 @@
+package mango.challenge.products.config;
+
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class DataSourceProxyConfig {
+
+    public static final String DATA_SOURCE_NAME = "products";
+
+    // Envuelve el DataSource de Hikari para contar sentencias por hilo (QueryCountHolder) y registrar en el log
+    // las consultas lentas con su SQL y sus parámetros. Los QueryExecutionListener del contexto se añaden a la
+    // cadena, lo que permite a los tests registrar el suyo para comprobar presupuestos de consultas. Los
+    // MethodExecutionListener reciben además las llamadas a getConnection y a los métodos de JDBC.
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(Environment environment,
+                                                                 ObjectProvider<QueryExecutionListener> listeners,
+                                                                 ObjectProvider<MethodExecutionListener> methodListeners) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                long slowQueryThreshold = environment.getProperty("app.sql.slow-query-threshold-ms", Long.class, 200L);
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                        .name(DATA_SOURCE_NAME)
+                        .countQuery()
+                        .logSlowQueryBySlf4j(slowQueryThreshold, TimeUnit.MILLISECONDS, SLF4JLogLevel.WARN);
+                listeners.orderedStream().forEach(builder::listener);
+                methodListeners.orderedStream().forEach(builder::methodListener);
+                return builder.build();
+            }
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package mango.challenge.products.config;
+
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.schema.DataFetchingEnvironment;
+import mango.challenge.products.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.DataFetcherExceptionResolver;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.execution.ErrorType;
+
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+@Configuration
+public class GraphQlConfig {
+
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(@Value("${app.graphql.max-depth:5}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    // La complejidad de products se multiplica por el número de ids pedidos, ya que cada id resuelve
+    // de nuevo toda la selección anidada
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${app.graphql.max-complexity:5000}") int maxComplexity) {
+        return new MaxQueryComplexityInstrumentation(maxComplexity, (environment, childComplexity) ->
+                environment.getArguments().get("ids") instanceof List<?> ids
+                        ? ids.size() * (1 + childComplexity)
+                        : 1 + childComplexity);
+    }
+
+    @Bean
+    public DataFetcherExceptionResolver graphQlExceptionResolver() {
+        return new DataFetcherExceptionResolverAdapter() {
+            @Override
+            protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment environment) {
+                ErrorType errorType;
+                String message = ex.getMessage();
+                if (ex instanceof ResourceNotFoundException) {
+                    errorType = ErrorType.NOT_FOUND;
+                } else if (ex instanceof IllegalArgumentException) {
+                    errorType = ErrorType.BAD_REQUEST;
+                } else if (ex instanceof DateTimeParseException parseException) {
+                    // Argumentos de fecha como currentPrice(date:) que no son yyyy-MM-dd
+                    errorType = ErrorType.BAD_REQUEST;
+                    message = "Fecha inválida '" + parseException.getParsedString() + "', se espera el formato yyyy-MM-dd";
+                } else {
+                    return null;
+                }
+                return GraphqlErrorBuilder.newError(environment)
+                        .errorType(errorType)
+                        .message(message)
+                        .build();
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package mango.challenge.products.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import mango.challenge.products.cache.HotProductTracker;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+// Cuenta cada petición a un producto concreto ({productId} o {id} en la ruta) para el top-K de productos
+@RequiredArgsConstructor
+class HotProductInterceptor implements HandlerInterceptor {
+
+    private final HotProductTracker hotProductTracker;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> variables) {
+            Object productId = variables.containsKey("productId") ? variables.get("productId") : variables.get("id");
+            if (productId instanceof String value) {
+                try {
+                    hotProductTracker.record(Long.parseLong(value));
+                } catch (NumberFormatException ignored) {
+                    // El controlador responderá 400
+                }
+            }
+        }
+        return true;
+    }
+}
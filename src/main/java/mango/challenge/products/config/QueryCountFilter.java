@@ -0,0 +1,66 @@
+package mango.challenge.products.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+@Slf4j
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+
+    public QueryCountFilter(MeterRegistry meterRegistry,
+                            @Value("${app.sql.request-statement-budget:10}") int statementBudget) {
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCountHolder.clear();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCount queryCount = QueryCountHolder.get(DataSourceProxyConfig.DATA_SOURCE_NAME);
+            if (queryCount != null) {
+                record(request, queryCount);
+            }
+            QueryCountHolder.clear();
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCount queryCount) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        int statements = queryCount.getTotal();
+
+        DistributionSummary.builder("http.server.requests.statements")
+                .description("Sentencias SQL ejecutadas por petición")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statements);
+
+        if (statements > statementBudget) {
+            log.warn("{} {} ejecutó {} sentencias SQL (select={}, insert={}, update={}, delete={}), presupuesto {}",
+                    request.getMethod(), uri, statements, queryCount.getSelect(), queryCount.getInsert(),
+                    queryCount.getUpdate(), queryCount.getDelete(), statementBudget);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package mango.challenge.products.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+// Sin sharding: el acceso R2DBC va contra una única base de datos y no sabe repartir por shard
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "false", matchIfMissing = true)
+public class R2dbcConfig {
+
+    private ConnectionPool connectionPool;
+
+    // El pool no se publica como bean ConnectionFactory: su presencia desactivaría el DataSource JDBC
+    // que siguen usando JPA y Flyway para la parte de escritura. Por lo mismo, la autoconfiguración de actuator
+    // no lo ve y sus métricas r2dbc.pool.* se registran aquí.
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${app.r2dbc.url}") String url,
+            @Value("${app.r2dbc.username}") String username,
+            @Value("${app.r2dbc.password}") String password,
+            @Value("${app.r2dbc.pool.initial-size:2}") int initialSize,
+            @Value("${app.r2dbc.pool.max-size:10}") int maxSize,
+            @Value("${app.r2dbc.pool.max-idle-time:30m}") Duration maxIdleTime) {
+
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(maxIdleTime)
+                .build());
+        meterRegistry.ifAvailable(registry ->
+                new ConnectionPoolMetrics(connectionPool, "reactive", Tags.empty()).bindTo(registry));
+
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
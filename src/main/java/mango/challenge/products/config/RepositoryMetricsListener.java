@@ -0,0 +1,48 @@
+package mango.challenge.products.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class RepositoryMetricsListener implements RepositoryMethodInvocationListener {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsListener(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        TimerKey key = new TimerKey(invocation.getRepositoryInterface(), invocation.getMethod(),
+                invocation.getResult() != null ? invocation.getResult().getState().name() : "UNKNOWN");
+        timers.computeIfAbsent(key, this::createTimer)
+                .record(invocation.getDuration(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    // Se incluye la firma para distinguir sobrecargas como findAll() y findAll(Specification, Pageable)
+    private Timer createTimer(TimerKey key) {
+        String signature = key.method().getName() + Arrays.stream(key.method().getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", "(", ")"));
+        return Timer.builder("repository.invocations")
+                .description("Duración de las llamadas a los repositorios de Spring Data")
+                .tag("repository", key.repository().getSimpleName())
+                .tag("method", signature)
+                .tag("state", key.state())
+                .publishPercentileHistogram()
+                .register(meterRegistry.getObject());
+    }
+
+    private record TimerKey(Class<?> repository, Method method, String state) {
+    }
+}
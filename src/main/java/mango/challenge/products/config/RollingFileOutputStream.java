@@ -0,0 +1,66 @@
+package mango.challenge.products.config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fichero de salida acotado: cuando supera {@code maxBytes} se renombra a {@code <fichero>.1} (sustituyendo el
+ * anterior) y se empieza uno nuevo, así que en disco nunca hay más de dos ficheros. Solo se rota en {@link #flush()},
+ * que el exportador de trazas llama al terminar cada lote, para no partir una línea entre dos ficheros.
+ */
+final class RollingFileOutputStream extends OutputStream {
+
+    private final Path path;
+    private final Path rotated;
+    private final long maxBytes;
+    private OutputStream out;
+    private long written;
+
+    RollingFileOutputStream(Path path, long maxBytes) throws IOException {
+        this.path = path;
+        this.rotated = path.resolveSibling(path.getFileName() + ".1");
+        this.maxBytes = maxBytes;
+        this.out = open();
+        this.written = Files.size(path);
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        out.write(b);
+        written++;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        written += len;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+        if (written >= maxBytes) {
+            out.close();
+            Files.move(path, rotated, StandardCopyOption.REPLACE_EXISTING);
+            out = open();
+            written = 0;
+        }
+    }
+
+    // El exportador y el cierre de la aplicación pueden cerrarlo los dos
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = OutputStream.nullOutputStream();
+        }
+    }
+
+    private OutputStream open() throws IOException {
+        return Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
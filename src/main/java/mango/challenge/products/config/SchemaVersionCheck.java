@@ -0,0 +1,70 @@
+package mango.challenge.products.config;
+
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.sharding.ShardRouter;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.flywaydb.core.api.MigrationState;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+// Con Flyway desactivado (perfil serving) solo se comprueba que no falten migraciones ni haya alguna fallida:
+// una lectura de flyway_schema_history en lugar de migrar y validar el esquema completo en cada réplica. Con
+// sharding se comprueba cada shard
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.schema.version-check", havingValue = "true")
+public class SchemaVersionCheck implements InitializingBean {
+
+    private final DataSource dataSource;
+    private final ShardRouter shardRouter;
+    private final String[] locations;
+
+    public SchemaVersionCheck(DataSource dataSource,
+                              ShardRouter shardRouter,
+                              @Value("${spring.flyway.locations:classpath:db/migration}") String[] locations) {
+        this.dataSource = dataSource;
+        this.shardRouter = shardRouter;
+        this.locations = locations;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            int checkedShard = shard;
+            shardRouter.runOn(shard, () -> check(checkedShard));
+        }
+    }
+
+    private void check(int shard) {
+        MigrationInfoService info = Flyway.configure()
+                .dataSource(dataSource)
+                .locations(locations)
+                .load()
+                .info();
+
+        MigrationInfo current = info.current();
+        if (current == null || current.getState() == MigrationState.FAILED) {
+            throw new IllegalStateException("El esquema de base de datos" + shardName(shard)
+                    + " no está migrado o la última migración falló ("
+                    + (current != null ? current.getVersion() : "sin versión") + "), ejecuta el modo migrate");
+        }
+        if (info.pending().length > 0) {
+            throw new IllegalStateException("Faltan migraciones por aplicar" + shardName(shard) + ": " + Arrays.stream(info.pending())
+                    .map(pending -> pending.getVersion().getVersion())
+                    .collect(Collectors.joining(", ")) + ", ejecuta el modo migrate");
+        }
+        log.info("Esquema de base de datos{} en la versión {}", shardName(shard), current.getVersion());
+    }
+
+    private String shardName(int shard) {
+        return shardRouter.isRouted() ? " del shard " + shard : "";
+    }
+}
@@ -0,0 +1,45 @@
+package mango.challenge.products.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import org.hibernate.engine.spi.SessionEventListener;
+
+// Hibernate instancia un listener por sesión (hibernate.session.events.auto). Con open-in-view cada
+// petición HTTP usa una única sesión, así que los valores registrados al cerrarla son por petición.
+// Se usa el registro global porque Hibernate crea la instancia fuera del contexto de Spring.
+public class SessionMetricsListener implements SessionEventListener {
+
+    private static final DistributionSummary STATEMENTS = DistributionSummary.builder("hibernate.session.statements")
+            .description("Sentencias JDBC ejecutadas por sesión de Hibernate")
+            .publishPercentileHistogram()
+            .register(Metrics.globalRegistry);
+
+    private static final DistributionSummary FLUSHES = DistributionSummary.builder("hibernate.session.flushes")
+            .description("Flushes ejecutados por sesión de Hibernate")
+            .publishPercentileHistogram()
+            .register(Metrics.globalRegistry);
+
+    private int statements;
+    private int flushes;
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        statements++;
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        statements++;
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        flushes++;
+    }
+
+    @Override
+    public void end() {
+        STATEMENTS.record(statements);
+        FLUSHES.record(flushes);
+    }
+}
@@ -0,0 +1,71 @@
+package mango.challenge.products.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.exporter.logging.otlp.traces.OtlpStdoutSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import jakarta.annotation.PreDestroy;
+import net.ttddyy.observation.tracing.DataSourceObservationListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Spans por capa: las peticiones HTTP los crea Spring MVC, los servicios {@code @Observed}, los repositorios
+ * {@link RepositoryObservationInterceptor} y cada sentencia JDBC el listener de datasource-micrometer, que se
+ * engancha al proxy de {@link DataSourceProxyConfig}.
+ */
+@Configuration
+public class TracingConfig {
+
+    private RollingFileOutputStream traceFile;
+
+    @Bean
+    public static BeanPostProcessor repositoryObservationPostProcessor(ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                                    proxyFactory.addAdvice(new RepositoryObservationInterceptor(observationRegistry,
+                                            repositoryInformation.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Static por el mismo motivo que el proxy del DataSource: el listener se resuelve al envolver el pool
+    @Bean
+    public static DataSourceObservationListener dataSourceObservationListener(ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new DataSourceObservationListener(() -> observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    }
+
+    // Exportador OTLP/JSON a fichero, una línea por lote de spans, para trabajar sin colector. Desactivado por
+    // defecto; el fichero rota al pasar de max-size y se conserva solo el anterior
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.file.enabled", havingValue = "true")
+    public SpanExporter fileSpanExporter(@Value("${app.tracing.file.path:traces.ndjson}") Path path,
+                                         @Value("${app.tracing.file.max-size:100MB}") DataSize maxSize) throws IOException {
+        traceFile = new RollingFileOutputStream(path, maxSize.toBytes());
+        return OtlpStdoutSpanExporter.builder()
+                .setOutput(traceFile)
+                .build();
+    }
+
+    // El proveedor de trazas, que depende del exportador, se cierra antes y ya ha vaciado los spans pendientes
+    @PreDestroy
+    public void closeTraceFile() throws IOException {
+        if (traceFile != null) {
+            traceFile.close();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package mango.challenge.products.config;
+
+import lombok.RequiredArgsConstructor;
+import mango.challenge.products.cache.HotProductTracker;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final HotProductTracker hotProductTracker;
+
+    // Se añade al final para que JSON siga siendo el formato por defecto con Accept: */*
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new CompactCborHttpMessageConverter());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HotProductInterceptor(hotProductTracker))
+                .addPathPatterns("/v1/products/*", "/v1/products/*/prices/**", "/v1/reactive/products/*/prices/**");
+    }
+}
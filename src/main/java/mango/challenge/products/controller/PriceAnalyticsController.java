@@ -0,0 +1,38 @@
+package mango.challenge.products.controller;
+
+import lombok.RequiredArgsConstructor;
+import mango.challenge.products.dto.PriceStatsResponse;
+import mango.challenge.products.service.PriceAnalyticsService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/analytics/prices")
+@RequiredArgsConstructor
+public class PriceAnalyticsController {
+
+    private final PriceAnalyticsService priceAnalyticsService;
+
+    // Estadísticas de cada producto en la ventana, ordenadas por id de producto
+    @GetMapping
+    public Slice<PriceStatsResponse> getProductStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @PageableDefault(size = 50) Pageable pageable) {
+        return priceAnalyticsService.getProductStats(fromDate, toDate, pageable);
+    }
+
+    @GetMapping("/{productId}/monthly")
+    public List<PriceStatsResponse> getMonthlyStats(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+        return priceAnalyticsService.getMonthlyStats(productId, fromDate, toDate);
+    }
+}
@@ -0,0 +1,25 @@
+package mango.challenge.products.controller;
+
+import lombok.RequiredArgsConstructor;
+import mango.challenge.products.dto.PriceAuditResponse;
+import mango.challenge.products.service.PriceAuditService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/v1/products/{productId}/prices/audit")
+@RequiredArgsConstructor
+public class PriceAuditController {
+
+    private final PriceAuditService priceAuditService;
+
+    @GetMapping
+    public Page<PriceAuditResponse> getAudit(
+            @PathVariable Long productId,
+            @PageableDefault(sort = "changedAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        return priceAuditService.getAudit(productId, pageable);
+    }
+}
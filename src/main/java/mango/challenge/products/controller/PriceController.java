@@ -2,9 +2,12 @@ package mango.challenge.products.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import mango.challenge.products.dto.FieldsetPage;
+import mango.challenge.products.dto.PriceField;
 import mango.challenge.products.dto.PriceRequest;
 import mango.challenge.products.dto.PriceResponse;
 import mango.challenge.products.service.PriceService;
+import mango.challenge.products.service.PriceWriteCoalescer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -16,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/v1/products/{productId}/prices")
@@ -23,16 +27,21 @@ import java.time.LocalDate;
 public class PriceController {
 
     private final PriceService priceService;
+    private final PriceWriteCoalescer priceWriteCoalescer;
 
+    // Con la escritura agrupada activada la respuesta se completa de forma asíncrona al confirmar el lote
     @PostMapping
-    public ResponseEntity<PriceResponse> addPrice(
+    public CompletableFuture<ResponseEntity<PriceResponse>> addPrice(
             @PathVariable Long productId,
             @Valid @RequestBody PriceRequest priceDTO
     ) {
-        PriceResponse created = priceService.addPrice(productId, priceDTO);
-        return new ResponseEntity<>(created, HttpStatus.CREATED);
+        CompletableFuture<PriceResponse> created = priceWriteCoalescer.isEnabled()
+                ? priceWriteCoalescer.addPrice(productId, priceDTO)
+                : CompletableFuture.completedFuture(priceService.addPrice(productId, priceDTO));
+        return created.thenApply(price -> new ResponseEntity<>(price, HttpStatus.CREATED));
     }
 
+    // totals solo tiene efecto junto con fields: aquí se rechaza en lugar de ignorarlo
     @GetMapping
     public Page<PriceResponse> getPrices(
             @PathVariable Long productId,
@@ -41,11 +50,31 @@ public class PriceController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
             @RequestParam(required = false) BigDecimal minValue,
             @RequestParam(required = false) BigDecimal maxValue,
+            @RequestParam(required = false) Boolean totals,
             @PageableDefault(sort = "initDate", direction = Sort.Direction.DESC) Pageable pageable) {
 
+        if (totals != null) {
+            throw new IllegalArgumentException("El parámetro totals solo se admite junto con fields");
+        }
         return priceService.getPrices(productId, date, fromDate, toDate, minValue, maxValue, pageable);
     }
 
+    // Variante con fields=value,initDate: solo consulta y serializa esos campos; con totals=false omite el COUNT
+    @GetMapping(params = "fields")
+    public FieldsetPage getPriceFields(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) BigDecimal minValue,
+            @RequestParam(required = false) BigDecimal maxValue,
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "true") boolean totals,
+            @PageableDefault(sort = "initDate", direction = Sort.Direction.DESC) Pageable pageable) {
+
+        return priceService.getPriceFields(productId, date, fromDate, toDate, minValue, maxValue,
+                PriceField.parse(fields), totals, pageable);
+    }
 
     @PatchMapping("/{priceId}")
     public ResponseEntity<PriceResponse> updatePrice(
@@ -1,15 +1,26 @@
 package mango.challenge.products.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import mango.challenge.products.dto.ProductField;
 import mango.challenge.products.dto.ProductRequest;
 import mango.challenge.products.dto.ProductResponse;
+import mango.challenge.products.service.PriceService;
 import mango.challenge.products.service.ProductService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/v1/products")
@@ -17,6 +28,8 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final PriceService priceService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<ProductResponse> createProduct(@Valid @RequestBody ProductRequest productDTO) {
@@ -30,9 +43,45 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllProductFields(@RequestParam String fields) {
+        return ResponseEntity.ok(productService.getAllProductFields(ProductField.parse(fields)));
+    }
+
+    // Productos cuyo precio vigente cambia entre fromDate y toDate, en streaming NDJSON ordenado por producto
+    @GetMapping(value = "/price-changes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getPriceChanges(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+                priceService.streamPriceChanges(fromDate, toDate, change -> {
+                    try {
+                        writer.write(change);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
         ProductResponse productDTO = productService.getProductById(id);
         return ResponseEntity.ok(productDTO);
     }
-}
\ No newline at end of file
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProductFieldsById(@PathVariable Long id, @RequestParam String fields) {
+        return ResponseEntity.ok(productService.getProductFieldsById(id, ProductField.parse(fields)));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
+        productService.deleteProduct(id);
+        return ResponseEntity.noContent().build();
+    }
+}
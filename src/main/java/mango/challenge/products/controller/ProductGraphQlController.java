@@ -0,0 +1,101 @@
+package mango.challenge.products.controller;
+
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.dto.ProductResponse;
+import mango.challenge.products.service.PriceService;
+import mango.challenge.products.service.ProductService;
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toSet;
+
+@Controller
+public class ProductGraphQlController {
+
+    private static final String RECENT_PRICES_BY_PRODUCT = "recentPricesByProduct";
+    private static final String PRICE_AT_BY_PRODUCT = "priceAtByProduct";
+
+    private final ProductService productService;
+    private final PriceService priceService;
+    private final int maxPricesPerProduct;
+
+    public ProductGraphQlController(ProductService productService, PriceService priceService,
+                                    BatchLoaderRegistry batchLoaderRegistry,
+                                    @Value("${app.graphql.max-prices-per-product:100}") int maxPricesPerProduct) {
+        this.productService = productService;
+        this.priceService = priceService;
+        this.maxPricesPerProduct = maxPricesPerProduct;
+
+        // Los campos prices y currentPrice de todos los productos de la petición se resuelven con una consulta por
+        // cada valor distinto de last o de date (normalmente uno), que solo lee las filas que se devuelven
+        batchLoaderRegistry.<RecentPricesKey, List<PriceResponse>>forName(RECENT_PRICES_BY_PRODUCT)
+                .registerMappedBatchLoader((keys, environment) -> Mono.fromSupplier(() -> loadRecentPrices(keys)));
+        batchLoaderRegistry.<PriceAtKey, PriceResponse>forName(PRICE_AT_BY_PRODUCT)
+                .registerMappedBatchLoader((keys, environment) -> Mono.fromSupplier(() -> loadPricesAt(keys)));
+    }
+
+    @QueryMapping
+    public ProductResponse product(@Argument Long id) {
+        return productService.getProductById(id);
+    }
+
+    @QueryMapping
+    public List<ProductResponse> products(@Argument List<Long> ids) {
+        return productService.getProductsByIds(ids);
+    }
+
+    @SchemaMapping(typeName = "Product")
+    public CompletableFuture<List<PriceResponse>> prices(ProductResponse product, @Argument int last,
+                                                         DataLoader<RecentPricesKey, List<PriceResponse>> recentPricesByProduct) {
+        if (last < 1 || last > maxPricesPerProduct) {
+            throw new IllegalArgumentException("last debe estar entre 1 y " + maxPricesPerProduct);
+        }
+        return recentPricesByProduct.load(new RecentPricesKey(product.getId(), last));
+    }
+
+    @SchemaMapping(typeName = "Product")
+    public CompletableFuture<PriceResponse> currentPrice(ProductResponse product, @Argument String date,
+                                                         DataLoader<PriceAtKey, PriceResponse> priceAtByProduct) {
+        LocalDate at = date != null ? LocalDate.parse(date) : LocalDate.now();
+        return priceAtByProduct.load(new PriceAtKey(product.getId(), at));
+    }
+
+    private Map<RecentPricesKey, List<PriceResponse>> loadRecentPrices(Set<RecentPricesKey> keys) {
+        Map<RecentPricesKey, List<PriceResponse>> prices = new HashMap<>();
+        keys.stream()
+                .collect(groupingBy(RecentPricesKey::last, mapping(RecentPricesKey::productId, toSet())))
+                .forEach((last, productIds) -> priceService.getPricesByProductIds(productIds, last)
+                        .forEach((productId, productPrices) -> prices.put(new RecentPricesKey(productId, last), productPrices)));
+        return prices;
+    }
+
+    private Map<PriceAtKey, PriceResponse> loadPricesAt(Set<PriceAtKey> keys) {
+        Map<PriceAtKey, PriceResponse> prices = new HashMap<>();
+        keys.stream()
+                .collect(groupingBy(PriceAtKey::date, mapping(PriceAtKey::productId, toSet())))
+                .forEach((date, productIds) -> priceService.getPricesAtByProductIds(productIds, date)
+                        .forEach((productId, price) -> prices.put(new PriceAtKey(productId, date), price)));
+        return prices;
+    }
+
+    record RecentPricesKey(Long productId, int last) {
+    }
+
+    record PriceAtKey(Long productId, LocalDate date) {
+    }
+}
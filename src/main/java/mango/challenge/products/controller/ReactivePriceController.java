@@ -0,0 +1,37 @@
+package mango.challenge.products.controller;
+
+import lombok.RequiredArgsConstructor;
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.service.ReactivePriceService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@RestController
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "false", matchIfMissing = true)
+@RequestMapping("/v1/reactive/products/{productId}/prices")
+@RequiredArgsConstructor
+public class ReactivePriceController {
+
+    private final ReactivePriceService reactivePriceService;
+
+    @GetMapping(params = "date")
+    public Mono<PriceResponse> getPriceAt(
+            @PathVariable Long productId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return reactivePriceService.getPriceAt(productId, date);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PriceResponse> getPriceHistory(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+        return reactivePriceService.getPriceHistory(productId, fromDate, toDate);
+    }
+}
@@ -0,0 +1,21 @@
+package mango.challenge.products.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FieldsetPage {
+    private List<Map<String, Object>> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private Long totalElements;
+}
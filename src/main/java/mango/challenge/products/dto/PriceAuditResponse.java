@@ -0,0 +1,41 @@
+package mango.challenge.products.dto;
+
+import lombok.*;
+import mango.challenge.products.model.PriceAudit;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PriceAuditResponse {
+    private Long id;
+    private Long productId;
+    private Long priceId;
+    private String operation;
+    private BigDecimal oldValue;
+    private LocalDate oldInitDate;
+    private LocalDate oldEndDate;
+    private BigDecimal newValue;
+    private LocalDate newInitDate;
+    private LocalDate newEndDate;
+    private LocalDateTime changedAt;
+
+    public PriceAuditResponse(PriceAudit audit) {
+        this.id = audit.getId();
+        this.productId = audit.getProductId();
+        this.priceId = audit.getPriceId();
+        this.operation = audit.getOperation();
+        this.oldValue = audit.getOldValue();
+        this.oldInitDate = audit.getOldInitDate();
+        this.oldEndDate = audit.getOldEndDate();
+        this.newValue = audit.getNewValue();
+        this.newInitDate = audit.getNewInitDate();
+        this.newEndDate = audit.getNewEndDate();
+        this.changedAt = audit.getChangedAt();
+    }
+}
@@ -0,0 +1,16 @@
+package mango.challenge.products.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PriceChangeResponse {
+    private Long productId;
+    private BigDecimal oldValue;
+    private BigDecimal newValue;
+}
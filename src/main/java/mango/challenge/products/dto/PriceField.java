@@ -0,0 +1,36 @@
+package mango.challenge.products.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public enum PriceField {
+    ID("id", "id"),
+    PRODUCT_ID("productId", "product.id"),
+    VALUE("value", "value"),
+    INIT_DATE("initDate", "initDate"),
+    END_DATE("endDate", "endDate");
+
+    private final String fieldName;
+    private final String attributePath;
+
+    public static List<PriceField> parse(String fields) {
+        List<PriceField> parsed = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .map(field -> Arrays.stream(values())
+                        .filter(value -> value.fieldName.equals(field))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Campo no válido: " + field)))
+                .distinct()
+                .toList();
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicarse al menos un campo");
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,22 @@
+package mango.challenge.products.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PriceStatsResponse {
+    private Long productId;
+    private YearMonth month;
+    private long changes;
+    private BigDecimal minValue;
+    private BigDecimal maxValue;
+    private BigDecimal averageValue;
+}
@@ -0,0 +1,34 @@
+package mango.challenge.products.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public enum ProductField {
+    ID("id", "id"),
+    NAME("name", "name"),
+    DESCRIPTION("description", "description");
+
+    private final String fieldName;
+    private final String attributePath;
+
+    public static List<ProductField> parse(String fields) {
+        List<ProductField> parsed = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .map(field -> Arrays.stream(values())
+                        .filter(value -> value.fieldName.equals(field))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Campo no válido: " + field)))
+                .distinct()
+                .toList();
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicarse al menos un campo");
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,41 @@
+package mango.challenge.products.event;
+
+import mango.challenge.products.model.Price;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Se publica dentro de la transacción que modifica el precio (PriceService, compactación); los listeners lo
+// procesan tras el commit
+public record PriceChangedEvent(
+        Operation operation,
+        Long productId,
+        Long priceId,
+        Snapshot before,
+        Snapshot after,
+        LocalDateTime changedAt) {
+
+    public enum Operation {
+        CREATE, UPDATE, DELETE
+    }
+
+    public record Snapshot(BigDecimal value, LocalDate initDate, LocalDate endDate) {
+
+        public static Snapshot of(Price price) {
+            return new Snapshot(price.getValue(), price.getInitDate(), price.getEndDate());
+        }
+    }
+
+    public static PriceChangedEvent created(Long productId, Price after) {
+        return new PriceChangedEvent(Operation.CREATE, productId, after.getId(), null, Snapshot.of(after), LocalDateTime.now());
+    }
+
+    public static PriceChangedEvent updated(Long productId, Snapshot before, Price after) {
+        return new PriceChangedEvent(Operation.UPDATE, productId, after.getId(), before, Snapshot.of(after), LocalDateTime.now());
+    }
+
+    public static PriceChangedEvent deleted(Long productId, Long priceId, Snapshot before) {
+        return new PriceChangedEvent(Operation.DELETE, productId, priceId, before, null, LocalDateTime.now());
+    }
+}
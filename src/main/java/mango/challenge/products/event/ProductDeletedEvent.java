@@ -0,0 +1,5 @@
+package mango.challenge.products.event;
+
+// Se publica dentro de la transacción del borrado lógico (ProductService); los listeners lo procesan tras el commit
+public record ProductDeletedEvent(Long productId) {
+}
@@ -1,5 +1,7 @@
 package mango.challenge.products.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -13,8 +15,31 @@ import java.util.stream.Collectors;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final Counter overlapRejections;
+    private final Counter badRequestRejections;
+    private final Counter notFoundRejections;
+    private final Counter validationRejections;
+    private final Counter unexpectedErrors;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.overlapRejections = rejectionCounter(meterRegistry, "overlap");
+        this.badRequestRejections = rejectionCounter(meterRegistry, "bad_request");
+        this.notFoundRejections = rejectionCounter(meterRegistry, "not_found");
+        this.validationRejections = rejectionCounter(meterRegistry, "validation");
+        this.unexpectedErrors = rejectionCounter(meterRegistry, "error");
+    }
+
+    @ExceptionHandler(PriceOverlapException.class)
+    public ResponseEntity<Map<String, String>> handleOverlap(PriceOverlapException ex) {
+        overlapRejections.increment();
+        return ResponseEntity
+                .badRequest()
+                .body(Map.of("error", ex.getMessage()));
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, String>> handleBadRequest(IllegalArgumentException ex) {
+        badRequestRejections.increment();
         return ResponseEntity
                 .badRequest()
                 .body(Map.of("error", ex.getMessage()));
@@ -22,6 +47,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<Map<String, String>> handleNotFound(ResourceNotFoundException ex) {
+        notFoundRejections.increment();
         return ResponseEntity
                 .status(HttpStatus.NOT_FOUND)
                 .body(Map.of("error", ex.getMessage()));
@@ -29,6 +55,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationErrors(MethodArgumentNotValidException ex) {
+        validationRejections.increment();
         Map<String, String> errors = ex.getBindingResult().getFieldErrors()
                 .stream()
                 .collect(Collectors.toMap(
@@ -40,9 +67,17 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleException(Exception ex) {
+        unexpectedErrors.increment();
         return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", "Error inesperado: " + ex.getMessage()));
     }
 
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("api.rejections")
+                .description("Peticiones rechazadas por GlobalExceptionHandler")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
 }
@@ -0,0 +1,7 @@
+package mango.challenge.products.exception;
+
+public class PriceOverlapException extends IllegalArgumentException {
+    public PriceOverlapException() {
+        super("El rango de fechas se solapa con otro precio existente");
+    }
+}
@@ -0,0 +1,45 @@
+package mango.challenge.products.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.sharding.ShardingConfig;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Modo de solo migración ({@code java -jar products.jar migrate}): arranca un contexto mínimo con el DataSource y
+ * Flyway, aplica las migraciones pendientes y termina. Se lanza una sola vez por despliegue (job o init container)
+ * y las réplicas arrancan con el perfil {@code serving}, que no migra ni valida el esquema.
+ * <p>
+ * Con sharding ({@code app.sharding.enabled}) el DataSource de {@link ShardingConfig.ShardedDataSourceConfig} migra
+ * cada shard al crearse y Flyway de Spring Boot queda desactivado.
+ * <p>
+ * No lleva {@code @Configuration} para que el escaneo de {@code ProductsApplication} no la recoja.
+ */
+@Slf4j
+@ImportAutoConfiguration({DataSourceAutoConfiguration.class, FlywayAutoConfiguration.class})
+@Import(ShardingConfig.ShardedDataSourceConfig.class)
+public class MigrationRunner {
+
+    public static final String COMMAND = "migrate";
+
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MigrationRunner.class)
+                .web(WebApplicationType.NONE)
+                .profiles(COMMAND)
+                .run(args);
+
+        context.getBeanProvider(Flyway.class).ifAvailable(flyway -> {
+            MigrationInfo current = flyway.info().current();
+            log.info("Migraciones aplicadas, versión del esquema: {}", current != null ? current.getVersion() : "vacío");
+        });
+        System.exit(SpringApplication.exit(context));
+    }
+}
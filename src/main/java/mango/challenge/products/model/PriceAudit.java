@@ -0,0 +1,52 @@
+package mango.challenge.products.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Solo lectura: las filas las inserta por lotes PriceAuditService con JDBC
+@Entity
+@Immutable
+@Table(name = "price_audit")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PriceAudit {
+
+    @Id
+    private Long id;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "price_id")
+    private Long priceId;
+
+    private String operation;
+
+    @Column(name = "old_value")
+    private BigDecimal oldValue;
+
+    @Column(name = "old_init_date")
+    private LocalDate oldInitDate;
+
+    @Column(name = "old_end_date")
+    private LocalDate oldEndDate;
+
+    @Column(name = "new_value")
+    private BigDecimal newValue;
+
+    @Column(name = "new_init_date")
+    private LocalDate newInitDate;
+
+    @Column(name = "new_end_date")
+    private LocalDate newEndDate;
+
+    @Column(name = "changed_at")
+    private LocalDateTime changedAt;
+}
@@ -3,12 +3,15 @@ package mango.challenge.products.model;
 import jakarta.persistence.*;
 import lombok.*;
 import mango.challenge.products.dto.ProductRequest;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "products")
+// Los productos borrados quedan ocultos para cualquier lectura JPA hasta que se purgan
+@SQLRestriction("deleted_at IS NULL")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,6 +32,9 @@ public class Product {
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Price> prices;
 
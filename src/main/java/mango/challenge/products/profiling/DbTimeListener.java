@@ -0,0 +1,43 @@
+package mango.challenge.products.profiling;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Acumula por hilo el tiempo de JDBC y el número de sentencias. DataSourceProxyConfig lo añade a la cadena
+// del DataSource; ServiceCallProfiler toma la diferencia antes y después de cada llamada, así que las
+// llamadas anidadas (getPrices -> assertProductExists) miden cada una su parte
+@Component
+public class DbTimeListener implements QueryExecutionListener {
+
+    private static final ThreadLocal<Totals> TOTALS = ThreadLocal.withInitial(Totals::new);
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        TOTALS.get().startedAt = System.nanoTime();
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Totals totals = TOTALS.get();
+        totals.nanos += System.nanoTime() - totals.startedAt;
+        totals.statements++;
+    }
+
+    static long elapsedNanos() {
+        return TOTALS.get().nanos;
+    }
+
+    static int statements() {
+        return TOTALS.get().statements;
+    }
+
+    private static final class Totals {
+        private long startedAt;
+        private long nanos;
+        private int statements;
+    }
+}
@@ -0,0 +1,144 @@
+package mango.challenge.products.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Grabación continua de JFR bajo demanda:
+//   GET  /actuator/flightrecorder            estado de la grabación
+//   POST /actuator/flightrecorder/start      {"settings": "default"} opcional; "default" cuesta en torno al 1%
+//   POST /actuator/flightrecorder/dump       vuelca lo grabado hasta ahora a app.jfr.dump-directory
+//   POST /actuator/flightrecorder/stop       para y descarta la grabación
+// La grabación es circular (max-age/max-size), así que puede quedarse activa y volcarse cuando haya un problema
+@Slf4j
+@Component
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint implements DisposableBean {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int STATUS_CONFLICT = 409;
+
+    private final String defaultSettings;
+    private final Duration maxAge;
+    private final DataSize maxSize;
+    private final Path dumpDirectory;
+
+    private Recording recording;
+
+    public FlightRecorderEndpoint(@Value("${app.jfr.settings:default}") String defaultSettings,
+                                  @Value("${app.jfr.max-age:30m}") Duration maxAge,
+                                  @Value("${app.jfr.max-size:256MB}") DataSize maxSize,
+                                  @Value("${app.jfr.dump-directory:jfr}") String dumpDirectory) {
+        this.defaultSettings = defaultSettings;
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+        this.dumpDirectory = Path.of(dumpDirectory);
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("state", recording != null ? recording.getState().name() : RecordingState.CLOSED.name());
+        if (recording != null) {
+            body.put("settings", recording.getName());
+            body.put("startedAt", recording.getStartTime());
+            body.put("maxAge", recording.getMaxAge());
+            body.put("maxSize", recording.getMaxSize());
+        }
+        return body;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> control(@Selector String action,
+                                                                      @Nullable String settings) {
+        try {
+            return switch (action) {
+                case "start" -> start(settings != null ? settings : defaultSettings);
+                case "dump" -> dump();
+                case "stop" -> stop();
+                default -> error(WebEndpointResponse.STATUS_BAD_REQUEST, "Acción desconocida: " + action);
+            };
+        } catch (IOException | ParseException ex) {
+            log.warn("Fallo en la grabación de JFR ({}): {}", action, ex.getMessage());
+            return error(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR, String.valueOf(ex.getMessage()));
+        }
+    }
+
+    private WebEndpointResponse<Map<String, Object>> start(String settings) throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return error(STATUS_CONFLICT, "Ya hay una grabación en curso");
+        }
+        close();
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        started.setName(settings);
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(maxSize.toBytes());
+        started.enable(ServiceCallEvent.class);
+        started.start();
+        recording = started;
+        log.info("Grabación de JFR iniciada con la configuración '{}'", settings);
+        return new WebEndpointResponse<>(status());
+    }
+
+    private WebEndpointResponse<Map<String, Object>> dump() throws IOException {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            return error(STATUS_CONFLICT, "No hay ninguna grabación en curso");
+        }
+        Files.createDirectories(dumpDirectory);
+        Path file = dumpDirectory.resolve("products-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr")
+                .toAbsolutePath();
+        recording.dump(file);
+
+        Map<String, Object> body = status();
+        body.put("file", file.toString());
+        body.put("bytes", Files.size(file));
+        return new WebEndpointResponse<>(body);
+    }
+
+    private WebEndpointResponse<Map<String, Object>> stop() {
+        if (recording == null) {
+            return error(STATUS_CONFLICT, "No hay ninguna grabación en curso");
+        }
+        close();
+        log.info("Grabación de JFR detenida");
+        return new WebEndpointResponse<>(status());
+    }
+
+    private void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private static WebEndpointResponse<Map<String, Object>> error(int status, String message) {
+        return new WebEndpointResponse<>(Map.of("error", message), status);
+    }
+
+    @Override
+    public synchronized void destroy() {
+        close();
+    }
+}
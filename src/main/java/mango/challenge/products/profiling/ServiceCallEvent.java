@@ -0,0 +1,49 @@
+package mango.challenge.products.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Un evento por llamada a PriceService/ProductService. Sin pila para que el coste por evento sea mínimo
+@Name(ServiceCallEvent.NAME)
+@Label("Service Call")
+@Category({"Mango", "Products"})
+@Description("Llamada a la capa de servicio con el producto, los filtros, las filas devueltas y el tiempo en base de datos")
+@StackTrace(false)
+public class ServiceCallEvent extends Event {
+
+    public static final String NAME = "mango.products.ServiceCall";
+
+    @Label("Service")
+    String service;
+
+    @Label("Method")
+    String method;
+
+    @Label("Product Id")
+    @Description("0 si la llamada no es de un producto concreto")
+    long productId;
+
+    @Label("Filters")
+    String filters;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("DB Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long dbTime;
+
+    @Label("Statements")
+    int statements;
+
+    @Label("Failed")
+    boolean failed;
+
+    @Label("Error")
+    String error;
+}
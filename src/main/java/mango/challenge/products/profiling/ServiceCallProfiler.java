@@ -0,0 +1,110 @@
+package mango.challenge.products.profiling;
+
+import mango.challenge.products.dto.FieldsetPage;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// Emite un ServiceCallEvent por llamada a PriceService/ProductService. Si ninguna grabación de JFR tiene el
+// evento activo solo se paga la comprobación de isEnabled(); los filtros y las filas se calculan únicamente
+// cuando el evento se va a escribir
+@Aspect
+@Component
+public class ServiceCallProfiler {
+
+    private static final int MAX_LISTED_ELEMENTS = 10;
+
+    @Around("execution(public * mango.challenge.products.service.PriceService.*(..)) "
+            + "|| execution(public * mango.challenge.products.service.ProductService.*(..))")
+    public Object profile(ProceedingJoinPoint joinPoint) throws Throwable {
+        ServiceCallEvent event = new ServiceCallEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        long dbNanos = DbTimeListener.elapsedNanos();
+        int statements = DbTimeListener.statements();
+        Object result = null;
+        event.begin();
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable ex) {
+            event.failed = true;
+            event.error = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+                event.service = signature.getDeclaringType().getSimpleName();
+                event.method = signature.getName();
+                describeArguments(event, signature.getParameterNames(), joinPoint.getArgs());
+                event.rows = rows(result);
+                event.dbTime = DbTimeListener.elapsedNanos() - dbNanos;
+                event.statements = DbTimeListener.statements() - statements;
+                event.commit();
+            }
+        }
+    }
+
+    // El identificador del producto va en su propio campo; el resto de argumentos simples no nulos son los filtros
+    private static void describeArguments(ServiceCallEvent event, String[] names, Object[] args) {
+        StringJoiner filters = new StringJoiner(", ");
+        for (int i = 0; i < args.length; i++) {
+            Object value = args[i];
+            String name = names != null ? names[i] : "arg" + i;
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof Long id && event.productId == 0 && ("productId".equals(name) || "id".equals(name))) {
+                event.productId = id;
+            } else if (value instanceof Pageable pageable) {
+                if (pageable.isPaged()) {
+                    filters.add("page=" + pageable.getPageNumber());
+                    filters.add("size=" + pageable.getPageSize());
+                }
+                if (pageable.getSort().isSorted()) {
+                    filters.add("sort=" + pageable.getSort());
+                }
+            } else if (value instanceof Collection<?> collection) {
+                filters.add(name + "=" + (collection.size() <= MAX_LISTED_ELEMENTS
+                        ? collection.toString()
+                        : "[" + collection.size() + " elementos]"));
+            } else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                    || value instanceof Temporal || value instanceof Enum<?>) {
+                filters.add(name + "=" + value);
+            }
+        }
+        event.filters = filters.toString();
+    }
+
+    static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Page<?> page) {
+            return page.getNumberOfElements();
+        }
+        if (result instanceof FieldsetPage page) {
+            return page.getContent() != null ? page.getContent().size() : 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        // getPricesByProductIds devuelve listas agrupadas por producto; el resto de mapas son una fila
+        if (result instanceof Map<?, ?> map && map.values().stream().allMatch(Collection.class::isInstance)) {
+            return map.values().stream().mapToLong(value -> ((Collection<?>) value).size()).sum();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,13 @@
+package mango.challenge.products.repository;
+
+import mango.challenge.products.model.PriceAudit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PriceAuditRepository extends JpaRepository<PriceAudit, Long> {
+
+    Page<PriceAudit> findByProductId(Long productId, Pageable pageable);
+}
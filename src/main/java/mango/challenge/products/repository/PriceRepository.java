@@ -1,36 +1,127 @@
 package mango.challenge.products.repository;
 
+import jakarta.persistence.QueryHint;
+import mango.challenge.products.dto.PriceResponse;
 import mango.challenge.products.model.Price;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PriceRepository extends JpaRepository<Price, Long> {
+public interface PriceRepository extends JpaRepository<Price, Long>, PriceRepositoryCustom {
+
+    Optional<Price> findByIdAndProductId(Long id, Long productId);
 
     @Modifying
     @Query("DELETE FROM Price p WHERE p.id = :priceId AND p.product.id = :productId")
     int deleteByIdAndProductId(@Param("priceId") Long priceId, @Param("productId") Long productId);
 
+    // Borra como mucho :limit precios del producto; la purga lo repite en transacciones cortas. Se borra por la clave
+    // primaria completa para que cada fila se busque solo en su partición
+    @Modifying
+    @Query(value = """
+        DELETE FROM prices
+        WHERE (id, init_date) IN (SELECT id, init_date FROM prices WHERE product_id = :productId LIMIT :limit)
+    """, nativeQuery = true)
+    int deleteChunkByProductId(@Param("productId") Long productId, @Param("limit") int limit);
+
+    // La cota sobre init_date es una comparación directa (sin OR) para que se descarten las particiones posteriores
+    // a endDate también con planes genéricos
     @Query(value = """
         SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END
         FROM prices p
         WHERE p.product_id = :productId
-          AND (
-                (CAST(:initDate AS DATE) <= p.end_date OR p.end_date IS NULL)
-            AND (CAST(:endDate AS DATE) >= p.init_date OR CAST(:endDate AS DATE) IS NULL)
-          )
+          AND (CAST(:initDate AS DATE) <= p.end_date OR p.end_date IS NULL)
+          AND p.init_date <= COALESCE(CAST(:endDate AS DATE), DATE 'infinity')
     """, nativeQuery = true)
     boolean existsOverlappingPrice(@Param("productId") Long productId,
                                    @Param("initDate") LocalDate initDate,
                                    @Param("endDate") LocalDate endDate);
 
     Page<Price> findAll(Specification<Price> spec, Pageable pageable);
+
+    long count(Specification<Price> spec);
+
+    // Una sola pasada agrupada por producto sobre idx_prices_date, acotada al intervalo entre ambas fechas;
+    // se devuelven en orden de producto solo los que tienen distinto precio vigente en cada fecha
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = """
+        SELECT d.product_id AS productId, d.old_value AS oldValue, d.new_value AS newValue
+        FROM (
+            SELECT p.product_id,
+                   MAX(p.value) FILTER (WHERE p.init_date <= CAST(:fromDate AS DATE)
+                                          AND (p.end_date IS NULL OR p.end_date >= CAST(:fromDate AS DATE))) AS old_value,
+                   MAX(p.value) FILTER (WHERE p.init_date <= CAST(:toDate AS DATE)
+                                          AND (p.end_date IS NULL OR p.end_date >= CAST(:toDate AS DATE))) AS new_value
+            FROM prices p
+            JOIN products pr ON pr.id = p.product_id AND pr.deleted_at IS NULL
+            WHERE p.init_date <= GREATEST(CAST(:fromDate AS DATE), CAST(:toDate AS DATE))
+              AND (p.end_date IS NULL OR p.end_date >= LEAST(CAST(:fromDate AS DATE), CAST(:toDate AS DATE)))
+            GROUP BY p.product_id
+        ) d
+        WHERE d.old_value IS DISTINCT FROM d.new_value
+        ORDER BY d.product_id
+    """, nativeQuery = true)
+    Stream<PriceChangeView> streamPriceChanges(@Param("fromDate") LocalDate fromDate,
+                                               @Param("toDate") LocalDate toDate);
+
+    interface PriceChangeView {
+        Long getProductId();
+
+        BigDecimal getOldValue();
+
+        BigDecimal getNewValue();
+    }
+
+    // Los :limit precios más recientes de cada producto: por producto se recorre idx_prices_date hacia atrás y se
+    // para en :limit filas, sin leer el resto del historial
+    @Query(value = """
+        SELECT p.*
+        FROM products pr
+        CROSS JOIN LATERAL (
+            SELECT * FROM prices
+            WHERE product_id = pr.id
+            ORDER BY init_date DESC
+            LIMIT :limit
+        ) p
+        WHERE pr.id IN (:productIds)
+        ORDER BY p.product_id, p.init_date DESC
+    """, nativeQuery = true)
+    List<Price> findRecentByProductIdIn(@Param("productIds") Collection<Long> productIds, @Param("limit") int limit);
+
+    // Como los precios de un producto no se solapan, devuelve como mucho una fila por producto
+    @Query("""
+        SELECT new mango.challenge.products.dto.PriceResponse(p.id, p.product.id, p.value, p.initDate, p.endDate)
+        FROM Price p
+        WHERE p.product.id IN :productIds
+          AND p.initDate <= :date
+          AND (p.endDate IS NULL OR p.endDate >= :date)
+    """)
+    List<PriceResponse> findPricesAt(@Param("productIds") Collection<Long> productIds, @Param("date") LocalDate date);
+
+    // Proyección directa al DTO, sin entidades en el contexto de persistencia ni join con products
+    @Query("""
+        SELECT new mango.challenge.products.dto.PriceResponse(p.id, p.product.id, p.value, p.initDate, p.endDate)
+        FROM Price p
+        WHERE p.product.id IN :productIds
+        ORDER BY p.product.id, p.initDate
+    """)
+    List<PriceResponse> findTimelines(@Param("productIds") Collection<Long> productIds);
 }
@@ -0,0 +1,14 @@
+package mango.challenge.products.repository;
+
+import mango.challenge.products.dto.PriceField;
+import mango.challenge.products.model.Price;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+public interface PriceRepositoryCustom {
+
+    List<Map<String, Object>> findFields(Specification<Price> spec, List<PriceField> fields, Pageable pageable, int limit);
+}
@@ -0,0 +1,26 @@
+package mango.challenge.products.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import mango.challenge.products.dto.PriceField;
+import mango.challenge.products.model.Price;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PriceRepositoryCustomImpl implements PriceRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFields(Specification<Price> spec, List<PriceField> fields,
+                                                Pageable pageable, int limit) {
+        Map<String, String> selection = new LinkedHashMap<>();
+        fields.forEach(field -> selection.put(field.getFieldName(), field.getAttributePath()));
+        return TupleProjections.select(entityManager, Price.class, spec, selection, pageable, limit);
+    }
+}
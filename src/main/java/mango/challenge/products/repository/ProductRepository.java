@@ -2,9 +2,51 @@ package mango.challenge.products.repository;
 
 import mango.challenge.products.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+    // Consultas nativas: @SQLRestriction oculta los productos borrados a JPQL
+    @Modifying
+    @Query(value = "UPDATE products SET deleted_at = :deletedAt WHERE id = :id AND deleted_at IS NULL", nativeQuery = true)
+    int markDeleted(@Param("id") Long id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    @Query(value = """
+        SELECT id FROM products
+        WHERE deleted_at IS NOT NULL
+        ORDER BY deleted_at
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<Long> findPendingPurgeIds(@Param("limit") int limit);
+
+    @Query(value = "SELECT COUNT(*) FROM products WHERE deleted_at IS NOT NULL", nativeQuery = true)
+    long countPendingPurge();
+
+    // Reclama el producto hasta el final de la transacción; si otra réplica lo tiene reclamado no espera y no
+    // devuelve nada. NO KEY UPDATE no bloquea las comprobaciones de clave foránea de prices
+    @Query(value = """
+        SELECT id FROM products
+        WHERE id = :id
+          AND deleted_at IS NOT NULL
+        FOR NO KEY UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    Optional<Long> claimForPurge(@Param("id") Long id);
 
+    // Solo se borra la fila cuando ya no le quedan precios, así el ON DELETE CASCADE no tiene trabajo
+    @Modifying
+    @Query(value = """
+        DELETE FROM products pr
+        WHERE pr.id = :id
+          AND pr.deleted_at IS NOT NULL
+          AND NOT EXISTS (SELECT 1 FROM prices p WHERE p.product_id = pr.id)
+    """, nativeQuery = true)
+    int deletePurged(@Param("id") Long id);
 }
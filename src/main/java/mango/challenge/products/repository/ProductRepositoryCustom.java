@@ -0,0 +1,14 @@
+package mango.challenge.products.repository;
+
+import mango.challenge.products.dto.ProductField;
+import mango.challenge.products.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    List<Map<String, Object>> findFields(Specification<Product> spec, List<ProductField> fields, Pageable pageable, int limit);
+}
@@ -0,0 +1,26 @@
+package mango.challenge.products.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import mango.challenge.products.dto.ProductField;
+import mango.challenge.products.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFields(Specification<Product> spec, List<ProductField> fields,
+                                                Pageable pageable, int limit) {
+        Map<String, String> selection = new LinkedHashMap<>();
+        fields.forEach(field -> selection.put(field.getFieldName(), field.getAttributePath()));
+        return TupleProjections.select(entityManager, Product.class, spec, selection, pageable, limit);
+    }
+}
@@ -0,0 +1,81 @@
+package mango.challenge.products.repository;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import mango.challenge.products.dto.PriceResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ReactivePriceRepository {
+
+    private static final String PRICE_COLUMNS = "SELECT id, product_id, value, init_date, end_date FROM prices ";
+
+    private final DatabaseClient reactiveDatabaseClient;
+
+    @Value("${app.r2dbc.fetch-size:256}")
+    private int fetchSize;
+
+    public Mono<Boolean> existsProduct(Long productId) {
+        return reactiveDatabaseClient.sql("SELECT EXISTS (SELECT 1 FROM products WHERE id = :productId AND deleted_at IS NULL)")
+                .bind("productId", productId)
+                .map(row -> row.get(0, Boolean.class))
+                .one();
+    }
+
+    public Mono<PriceResponse> findPriceAt(Long productId, LocalDate date) {
+        return reactiveDatabaseClient.sql(PRICE_COLUMNS + """
+                        WHERE product_id = :productId
+                          AND init_date <= :date
+                          AND (end_date IS NULL OR end_date >= :date)
+                        ORDER BY init_date DESC
+                        LIMIT 1
+                        """)
+                .bind("productId", productId)
+                .bind("date", date)
+                .map(ReactivePriceRepository::toPriceResponse)
+                .one();
+    }
+
+    public Flux<PriceResponse> findHistory(Long productId, LocalDate fromDate, LocalDate toDate) {
+        StringBuilder sql = new StringBuilder(PRICE_COLUMNS).append("WHERE product_id = :productId ");
+        if (fromDate != null) {
+            sql.append("AND init_date >= :fromDate ");
+        }
+        if (toDate != null) {
+            sql.append("AND init_date <= :toDate AND end_date <= :toDate ");
+        }
+        sql.append("ORDER BY init_date DESC");
+
+        DatabaseClient.GenericExecuteSpec spec = reactiveDatabaseClient.sql(sql.toString())
+                .bind("productId", productId)
+                // Con fetchSize el driver abre un portal y pide filas por bloques según la demanda del suscriptor
+                .filter(statement -> statement.fetchSize(fetchSize));
+        if (fromDate != null) {
+            spec = spec.bind("fromDate", fromDate);
+        }
+        if (toDate != null) {
+            spec = spec.bind("toDate", toDate);
+        }
+        return spec.map(ReactivePriceRepository::toPriceResponse).all();
+    }
+
+    private static PriceResponse toPriceResponse(Readable row) {
+        return PriceResponse.builder()
+                .id(row.get("id", Long.class))
+                .productId(row.get("product_id", Long.class))
+                .value(row.get("value", BigDecimal.class))
+                .initDate(row.get("init_date", LocalDate.class))
+                .endDate(row.get("end_date", LocalDate.class))
+                .build();
+    }
+}
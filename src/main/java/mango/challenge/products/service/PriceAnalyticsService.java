@@ -0,0 +1,173 @@
+package mango.challenge.products.service;
+
+import io.micrometer.observation.annotation.Observed;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import mango.challenge.products.dto.PriceStatsResponse;
+import mango.challenge.products.sharding.ScatterGather;
+import mango.challenge.products.sharding.ShardKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Estadísticas de precios (cambios, mínimo, máximo y media de los precios que entran en vigor) para una ventana de
+ * fechas. Los meses completos de la ventana se leen de {@code price_monthly_rollups}; solo los meses de los extremos
+ * que quedan a medias se calculan sobre {@code prices}, filtrando por {@code init_date}, así que nunca se recorre
+ * más de un mes de precios por extremo.
+ */
+@Service
+@Observed(name = "products.service")
+@RequiredArgsConstructor
+@Transactional
+public class PriceAnalyticsService {
+
+    private static final String ROLLUP_COLUMNS = "product_id, month, changes, min_value, max_value, sum_value";
+
+    private static final String RAW_COLUMNS = "product_id, date_trunc('month', init_date)::date AS month, "
+            + "COUNT(*) AS changes, MIN(value) AS min_value, MAX(value) AS max_value, SUM(value) AS sum_value";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductService productService;
+    private final ScatterGather scatterGather;
+
+    // Una fila por mes; la del primer y el último mes solo cuentan los días de la ventana. Las filas de un producto
+    // borrado se descartan en la propia consulta y, si no queda ninguna, se comprueba si es por el borrado
+    public List<PriceStatsResponse> getMonthlyStats(@ShardKey Long productId, LocalDate fromDate, LocalDate toDate) {
+        productService.assertProductExists(productId);
+
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT * FROM (" + parts(Window.of(fromDate, toDate), productId, args) + ") s"
+                + " WHERE EXISTS (SELECT 1 FROM products p WHERE p.id = ? AND p.deleted_at IS NULL) ORDER BY month";
+        args.add(productId);
+        List<PriceStatsResponse> stats = jdbcTemplate.query(sql,
+                (rs, rowNum) -> stats(rs, YearMonth.from(rs.getObject("month", LocalDate.class))), args.toArray());
+        if (stats.isEmpty()) {
+            productService.assertProductNotDeleted(productId);
+        }
+        return stats;
+    }
+
+    // Una fila por producto con los meses de la ventana combinados, ordenadas por id de producto. Cada shard
+    // devuelve sus primeras offset + size + 1 filas y la página se corta sobre la mezcla
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Slice<PriceStatsResponse> getProductStats(LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("""
+                SELECT s.product_id, SUM(s.changes) AS changes, MIN(s.min_value) AS min_value,
+                       MAX(s.max_value) AS max_value, SUM(s.sum_value) AS sum_value
+                FROM (""")
+                .append(parts(Window.of(fromDate, toDate), null, args))
+                .append("""
+                ) s
+                JOIN products p ON p.id = s.product_id AND p.deleted_at IS NULL
+                GROUP BY s.product_id
+                ORDER BY s.product_id""");
+        if (pageable.isPaged()) {
+            // Una fila de más para saber si hay página siguiente sin consulta COUNT
+            sql.append(" LIMIT ?");
+            args.add(pageable.getOffset() + pageable.getPageSize() + 1);
+        }
+
+        List<PriceStatsResponse> content = scatterGather.onAllShards(
+                        () -> jdbcTemplate.query(sql.toString(), (rs, rowNum) -> stats(rs, null), args.toArray()))
+                .stream()
+                .sorted(Comparator.comparing(PriceStatsResponse::getProductId))
+                .skip(pageable.isPaged() ? pageable.getOffset() : 0)
+                .toList();
+        boolean hasNext = pageable.isPaged() && content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    private static String parts(Window window, Long productId, List<Object> args) {
+        StringJoiner union = new StringJoiner(" UNION ALL ");
+        if (window.rollups()) {
+            StringBuilder rollups = new StringBuilder("SELECT " + ROLLUP_COLUMNS + " FROM price_monthly_rollups WHERE TRUE");
+            if (productId != null) {
+                rollups.append(" AND product_id = ?");
+                args.add(productId);
+            }
+            if (window.rollupFrom() != null) {
+                rollups.append(" AND month >= ?");
+                args.add(Date.valueOf(window.rollupFrom()));
+            }
+            if (window.rollupTo() != null) {
+                rollups.append(" AND month < ?");
+                args.add(Date.valueOf(window.rollupTo()));
+            }
+            union.add(rollups);
+        }
+        for (DateRange edge : window.edges()) {
+            StringBuilder raw = new StringBuilder("SELECT " + RAW_COLUMNS + " FROM prices WHERE ");
+            if (productId != null) {
+                raw.append("product_id = ? AND ");
+                args.add(productId);
+            }
+            raw.append("init_date >= ? AND init_date < ? GROUP BY product_id, date_trunc('month', init_date)");
+            args.add(Date.valueOf(edge.from()));
+            args.add(Date.valueOf(edge.toExclusive()));
+            union.add(raw);
+        }
+        return union.toString();
+    }
+
+    private static PriceStatsResponse stats(ResultSet rs, YearMonth month) throws SQLException {
+        long changes = rs.getLong("changes");
+        return PriceStatsResponse.builder()
+                .productId(rs.getLong("product_id"))
+                .month(month)
+                .changes(changes)
+                .minValue(rs.getBigDecimal("min_value"))
+                .maxValue(rs.getBigDecimal("max_value"))
+                .averageValue(rs.getBigDecimal("sum_value").divide(BigDecimal.valueOf(changes), 2, RoundingMode.HALF_UP))
+                .build();
+    }
+
+    /**
+     * Reparto de la ventana [fromDate, toDate] (ambas inclusive y opcionales) entre los meses completos, que se
+     * leen de los agregados, y los extremos, que se calculan sobre los precios. Si la ventana no contiene ningún
+     * mes completo se calcula entera sobre los precios: como mucho abarca dos meses.
+     */
+    record Window(LocalDate rollupFrom, LocalDate rollupTo, boolean rollups, List<DateRange> edges) {
+
+        static Window of(LocalDate fromDate, LocalDate toDate) {
+            if (fromDate != null && toDate != null && toDate.isBefore(fromDate)) {
+                throw new IllegalArgumentException("fromDate no puede ser posterior a toDate");
+            }
+            LocalDate end = toDate != null ? toDate.plusDays(1) : null;
+            LocalDate fullFrom = fromDate == null || fromDate.getDayOfMonth() == 1
+                    ? fromDate
+                    : fromDate.withDayOfMonth(1).plusMonths(1);
+            LocalDate fullTo = end != null ? end.withDayOfMonth(1) : null;
+
+            if (fullFrom != null && fullTo != null && !fullFrom.isBefore(fullTo)) {
+                return new Window(null, null, false, List.of(new DateRange(fromDate, end)));
+            }
+            List<DateRange> edges = new ArrayList<>();
+            if (fromDate != null && fromDate.isBefore(fullFrom)) {
+                edges.add(new DateRange(fromDate, fullFrom));
+            }
+            if (end != null && fullTo.isBefore(end)) {
+                edges.add(new DateRange(fullTo, end));
+            }
+            return new Window(fullFrom, fullTo, true, edges);
+        }
+    }
+
+    record DateRange(LocalDate from, LocalDate toExclusive) {
+    }
+}
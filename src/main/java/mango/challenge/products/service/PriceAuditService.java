@@ -0,0 +1,258 @@
+package mango.challenge.products.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.dto.PriceAuditResponse;
+import mango.challenge.products.event.PriceChangedEvent;
+import mango.challenge.products.repository.PriceAuditRepository;
+import mango.challenge.products.sharding.ShardKey;
+import mango.challenge.products.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auditoría asíncrona de cambios de precios.
+ * <p>
+ * Los eventos se encolan tras el commit en un buffer acotado y un hilo de fondo los inserta por lotes en
+ * {@code price_audit}. Si el buffer sigue lleno tras {@code offer-timeout} (backpressure sobre la petición) o la
+ * base de datos falla, los eventos se guardan en un fichero de spool que se reprocesa al arrancar, cuando el
+ * esquema ya está migrado. Cada lote se escribe en una transacción: si falla, no queda ninguna fila y el lote entero
+ * va al spool sin duplicar las ya insertadas. Con sharding, cada lote se reparte y se escribe en el shard del producto.
+ */
+@Slf4j
+@Service
+public class PriceAuditService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO price_audit (product_id, price_id, operation, old_value, old_init_date, old_end_date,
+                                     new_value, new_init_date, new_end_date, changed_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PriceAuditRepository priceAuditRepository;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shardRouter;
+    private final BlockingQueue<PriceChangedEvent> buffer;
+    private final int batchSize;
+    private final Duration offerTimeout;
+    private final Duration flushInterval;
+    private final Path spoolFile;
+    private final Counter writtenEvents;
+    private final Counter spilledEvents;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public PriceAuditService(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             PriceAuditRepository priceAuditRepository,
+                             ObjectMapper objectMapper,
+                             ShardRouter shardRouter,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.audit.buffer-capacity:10000}") int bufferCapacity,
+                             @Value("${app.audit.batch-size:500}") int batchSize,
+                             @Value("${app.audit.offer-timeout:50ms}") Duration offerTimeout,
+                             @Value("${app.audit.flush-interval:200ms}") Duration flushInterval,
+                             @Value("${app.audit.spool-file:price-audit-spool.ndjson}") Path spoolFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.priceAuditRepository = priceAuditRepository;
+        this.objectMapper = objectMapper;
+        this.shardRouter = shardRouter;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.offerTimeout = offerTimeout;
+        this.flushInterval = flushInterval;
+        this.spoolFile = spoolFile;
+        this.writtenEvents = Counter.builder("audit.events.written").register(meterRegistry);
+        this.spilledEvents = Counter.builder("audit.events.spilled").register(meterRegistry);
+        Gauge.builder("audit.buffer.size", buffer, Collection::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("price-audit-writer").daemon(true).start(this::drainLoop);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPriceChanged(PriceChangedEvent event) {
+        try {
+            if (!buffer.offer(event, offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                spool(List.of(event));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            spool(List.of(event));
+        }
+    }
+
+    public Page<PriceAuditResponse> getAudit(@ShardKey Long productId, Pageable pageable) {
+        return priceAuditRepository.findByProductId(productId, pageable)
+                .map(PriceAuditResponse::new);
+    }
+
+    // Se deja de aceptar trabajo, se espera al lote en curso y lo que quede en el buffer se escribe
+    // (o se guarda en el spool si la base de datos ya no está disponible)
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(flushInterval.multipliedBy(10).toMillis());
+        }
+        List<PriceChangedEvent> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            write(remaining.subList(from, Math.min(remaining.size(), from + batchSize)));
+        }
+    }
+
+    private void drainLoop() {
+        List<PriceChangedEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PriceChangedEvent first = buffer.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    buffer.drainTo(batch, batchSize - 1);
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error inesperado en el escritor de auditoría", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Cada shard recibe su parte del lote; si uno falla, solo su parte va al spool
+    void write(List<PriceChangedEvent> batch) {
+        shardRouter.partition(batch, PriceChangedEvent::productId).forEach((shard, events) -> {
+            try {
+                shardRouter.runOn(shard, () -> transactionTemplate.executeWithoutResult(status -> insert(events)));
+                writtenEvents.increment(events.size());
+            } catch (DataAccessException | TransactionException e) {
+                log.error("No se pudo escribir un lote de {} eventos de auditoría, se guardan en {}", events.size(), spoolFile, e);
+                spool(events);
+            }
+        });
+    }
+
+    private void insert(List<PriceChangedEvent> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+            PriceChangedEvent.Snapshot before = event.before();
+            PriceChangedEvent.Snapshot after = event.after();
+            ps.setLong(1, event.productId());
+            ps.setLong(2, event.priceId());
+            ps.setString(3, event.operation().name());
+            ps.setObject(4, before != null ? before.value() : null, Types.NUMERIC);
+            ps.setObject(5, before != null ? before.initDate() : null, Types.DATE);
+            ps.setObject(6, before != null ? before.endDate() : null, Types.DATE);
+            ps.setObject(7, after != null ? after.value() : null, Types.NUMERIC);
+            ps.setObject(8, after != null ? after.initDate() : null, Types.DATE);
+            ps.setObject(9, after != null ? after.endDate() : null, Types.DATE);
+            ps.setTimestamp(10, Timestamp.valueOf(event.changedAt()));
+        });
+    }
+
+    synchronized void spool(List<PriceChangedEvent> events) {
+        List<String> lines = new ArrayList<>(events.size());
+        for (PriceChangedEvent event : events) {
+            try {
+                lines.add(objectMapper.writeValueAsString(event));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        try {
+            Files.write(spoolFile, lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+            spilledEvents.increment(events.size());
+        } catch (IOException e) {
+            log.error("No se pudieron guardar {} eventos de auditoría en {}", events.size(), spoolFile, e);
+        }
+    }
+
+    // El spool se inserta en una única transacción por shard para que un fallo a medias no duplique filas al
+    // reintentar; con varios shards, los que ya se escribieron se quitan del spool antes de pasar al siguiente. Se
+    // espera a que la aplicación esté lista: price_audit puede no existir hasta que se aplican las migraciones
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void replaySpool() {
+        if (!Files.exists(spoolFile)) {
+            return;
+        }
+        try {
+            List<PriceChangedEvent> events = new ArrayList<>();
+            for (String line : Files.readAllLines(spoolFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    events.add(objectMapper.readValue(line, PriceChangedEvent.class));
+                }
+            }
+            List<PriceChangedEvent> pending = new ArrayList<>(events);
+            for (Map.Entry<Integer, List<PriceChangedEvent>> entry : shardRouter.partition(events, PriceChangedEvent::productId).entrySet()) {
+                List<PriceChangedEvent> shardEvents = entry.getValue();
+                shardRouter.runOn(entry.getKey(), () -> transactionTemplate.executeWithoutResult(status -> {
+                    for (int from = 0; from < shardEvents.size(); from += batchSize) {
+                        insert(shardEvents.subList(from, Math.min(shardEvents.size(), from + batchSize)));
+                    }
+                }));
+                pending.removeAll(shardEvents);
+                if (!pending.isEmpty()) {
+                    rewriteSpool(pending);
+                }
+            }
+            Files.delete(spoolFile);
+            writtenEvents.increment(events.size());
+            log.info("Recuperados {} eventos de auditoría de {}", events.size(), spoolFile);
+        } catch (IOException | DataAccessException | TransactionException e) {
+            log.error("No se pudo recuperar el spool de auditoría {}, se reintentará en el próximo arranque", spoolFile, e);
+        }
+    }
+
+    private void rewriteSpool(List<PriceChangedEvent> events) throws IOException {
+        List<String> lines = new ArrayList<>(events.size());
+        for (PriceChangedEvent event : events) {
+            lines.add(objectMapper.writeValueAsString(event));
+        }
+        Files.write(spoolFile, lines, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+    }
+}
@@ -0,0 +1,206 @@
+package mango.challenge.products.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.event.PriceChangedEvent;
+import mango.challenge.products.sharding.EachShard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compactación del histórico de precios: une los tramos consecutivos de un producto con el mismo valor y fechas
+ * contiguas (el siguiente empieza el día después de que termine el anterior) en el primero de ellos, que pasa a
+ * terminar donde terminaba el último, y borra el resto. El tramo resultante cubre exactamente los mismos días, así
+ * que no puede solapar con otros precios.
+ * <p>
+ * Se recorren los productos por rangos de ids, cada rango en su propia transacción. En modo {@code dry-run}, el
+ * predeterminado, solo se cuentan las filas que se eliminarían.
+ */
+@Slf4j
+@Service
+public class PriceCompactionService {
+
+    // run_start marca el inicio de cada racha; su suma acumulada numera las rachas dentro del producto
+    private static final String RUNS_SQL = """
+            WITH ordered AS (
+                SELECT id, product_id, value, init_date, end_date,
+                       CASE WHEN LAG(value) OVER w = value AND LAG(end_date) OVER w = init_date - 1
+                            THEN 0 ELSE 1 END AS run_start
+                FROM prices
+                WHERE product_id BETWEEN ? AND ?
+                WINDOW w AS (PARTITION BY product_id ORDER BY init_date)
+            ), runs AS (
+                SELECT *, SUM(run_start) OVER (PARTITION BY product_id ORDER BY init_date) AS run_id
+                FROM ordered
+            )
+            SELECT id, product_id, value, init_date, end_date, run_id
+            FROM (SELECT *, COUNT(*) OVER (PARTITION BY product_id, run_id) AS run_length FROM runs) r
+            WHERE run_length > 1
+            ORDER BY product_id, init_date
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final boolean dryRun;
+    private final int batchSize;
+    private final Duration pause;
+
+    public PriceCompactionService(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.compaction.enabled:true}") boolean enabled,
+                                  @Value("${app.compaction.dry-run:true}") boolean dryRun,
+                                  @Value("${app.compaction.batch-size:200}") int batchSize,
+                                  @Value("${app.compaction.pause:50ms}") Duration pause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.dryRun = dryRun;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @EachShard
+    @Scheduled(cron = "${app.compaction.cron:0 30 3 * * *}")
+    public void compactScheduled() {
+        if (enabled) {
+            compact(dryRun);
+        }
+    }
+
+    public CompactionResult compact(boolean dryRun) {
+        long mergedRuns = 0;
+        long eliminatedRows = 0;
+        long lastProductId = 0;
+        try {
+            List<Long> productIds;
+            while (!(productIds = nextProductIds(lastProductId)).isEmpty()) {
+                long fromId = productIds.getFirst();
+                long toId = productIds.getLast();
+                List<Merge> merges = dryRun
+                        ? findMerges(fromId, toId)
+                        : transactionTemplate.execute(status -> compactRange(fromId, toId));
+                for (Merge merge : merges) {
+                    mergedRuns++;
+                    eliminatedRows += merge.removed().size();
+                }
+                lastProductId = toId;
+                if (!pause.isZero()) {
+                    Thread.sleep(pause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        meterRegistry.counter("price.compaction.rows.eliminated", "dry_run", String.valueOf(dryRun)).increment(eliminatedRows);
+        meterRegistry.counter("price.compaction.runs.merged", "dry_run", String.valueOf(dryRun)).increment(mergedRuns);
+        log.info("Compactación de precios{}: {} rachas unidas, {} filas eliminadas",
+                dryRun ? " (dry-run)" : "", mergedRuns, eliminatedRows);
+        return new CompactionResult(mergedRuns, eliminatedRows, dryRun);
+    }
+
+    private List<Long> nextProductIds(long lastProductId) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE id > ? AND deleted_at IS NULL ORDER BY id LIMIT ?",
+                Long.class, lastProductId, batchSize);
+    }
+
+    // Los precios del rango se bloquean antes de calcular las rachas para que ninguna actualización concurrente
+    // cambie un tramo entre la lectura y la escritura
+    private List<Merge> compactRange(long fromId, long toId) {
+        jdbcTemplate.queryForList("SELECT id FROM prices WHERE product_id BETWEEN ? AND ? FOR UPDATE",
+                Long.class, fromId, toId);
+        List<Merge> merges = findMerges(fromId, toId);
+        if (merges.isEmpty()) {
+            return merges;
+        }
+
+        // Con init_date, cada sentencia va directa a la partición del tramo en vez de sondear el índice de todas
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (Merge merge : merges) {
+            merge.removed().forEach(row -> deletes.add(new Object[]{row.id(), Date.valueOf(row.initDate())}));
+            updates.add(new Object[]{merge.mergedEndDate() != null ? Date.valueOf(merge.mergedEndDate()) : null,
+                    merge.kept().id(), Date.valueOf(merge.kept().initDate())});
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM prices WHERE id = ? AND init_date = ?", deletes);
+        jdbcTemplate.batchUpdate("UPDATE prices SET end_date = ? WHERE id = ? AND init_date = ?", updates);
+        merges.forEach(this::publishEvents);
+        return merges;
+    }
+
+    List<Merge> findMerges(long fromId, long toId) {
+        List<PriceRow> rows = jdbcTemplate.query(RUNS_SQL, (rs, rowNum) -> new PriceRow(
+                rs.getLong("id"),
+                rs.getLong("product_id"),
+                rs.getBigDecimal("value"),
+                rs.getObject("init_date", LocalDate.class),
+                rs.getObject("end_date", LocalDate.class),
+                rs.getLong("run_id")), fromId, toId);
+        return groupRuns(rows);
+    }
+
+    // Las filas llegan ordenadas por producto y fecha de inicio, y solo las de rachas de más de un tramo
+    static List<Merge> groupRuns(List<PriceRow> rows) {
+        List<Merge> merges = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= rows.size(); i++) {
+            if (i == rows.size() || !sameRun(rows.get(start), rows.get(i))) {
+                List<PriceRow> run = rows.subList(start, i);
+                if (run.size() > 1) {
+                    merges.add(new Merge(run.getFirst(), List.copyOf(run.subList(1, run.size())), run.getLast().endDate()));
+                }
+                start = i;
+            }
+        }
+        return merges;
+    }
+
+    private static boolean sameRun(PriceRow a, PriceRow b) {
+        return Objects.equals(a.productId(), b.productId()) && a.runId() == b.runId();
+    }
+
+    private void publishEvents(Merge merge) {
+        PriceRow kept = merge.kept();
+        LocalDateTime now = LocalDateTime.now();
+        for (PriceRow removed : merge.removed()) {
+            eventPublisher.publishEvent(new PriceChangedEvent(PriceChangedEvent.Operation.DELETE, removed.productId(),
+                    removed.id(), removed.snapshot(), null, now));
+        }
+        eventPublisher.publishEvent(new PriceChangedEvent(PriceChangedEvent.Operation.UPDATE, kept.productId(), kept.id(),
+                kept.snapshot(), new PriceChangedEvent.Snapshot(kept.value(), kept.initDate(), merge.mergedEndDate()), now));
+    }
+
+    record PriceRow(Long id, Long productId, BigDecimal value, LocalDate initDate, LocalDate endDate, long runId) {
+
+        PriceChangedEvent.Snapshot snapshot() {
+            return new PriceChangedEvent.Snapshot(value, initDate, endDate);
+        }
+    }
+
+    record Merge(PriceRow kept, List<PriceRow> removed, LocalDate mergedEndDate) {
+    }
+
+    public record CompactionResult(long mergedRuns, long eliminatedRows, boolean dryRun) {
+    }
+}
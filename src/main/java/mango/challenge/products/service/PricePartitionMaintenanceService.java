@@ -0,0 +1,112 @@
+package mango.challenge.products.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.sharding.EachShard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Mantenimiento de las particiones mensuales de {@code prices}: crea con antelación las de los próximos meses y
+ * archiva (desadjunta y mueve al esquema {@code price_archive}) las anteriores al periodo de retención cuyos
+ * precios ya no están vigentes, para que vacuum y los índices solo trabajen sobre el histórico reciente.
+ */
+@Slf4j
+@Service
+public class PricePartitionMaintenanceService {
+
+    static final String PARTITION_PREFIX = "prices_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Counter createdPartitions;
+    private final Counter archivedPartitions;
+
+    public PricePartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                            TransactionTemplate transactionTemplate,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${app.partitions.months-ahead:3}") int monthsAhead,
+                                            @Value("${app.partitions.retention-months:36}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.createdPartitions = Counter.builder("price.partitions.created").register(meterRegistry);
+        this.archivedPartitions = Counter.builder("price.partitions.archived").register(meterRegistry);
+    }
+
+    @EachShard
+    @Scheduled(cron = "${app.partitions.cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            createUpcomingPartitions();
+            archiveExpiredPartitions(LocalDate.now());
+        } catch (DataAccessException e) {
+            log.error("Error en el mantenimiento de particiones de precios", e);
+        }
+    }
+
+    void createUpcomingPartitions() {
+        // La función se serializa con un advisory lock, así que varias réplicas pueden lanzarla a la vez
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT ensure_price_partitions('prices', date_trunc('month', current_date)::date, ?)",
+                Integer.class, monthsAhead);
+        if (created != null && created > 0) {
+            createdPartitions.increment(created);
+            log.info("Creadas {} particiones de precios", created);
+        }
+    }
+
+    void archiveExpiredPartitions(LocalDate today) {
+        LocalDate cutoff = YearMonth.from(today).minusMonths(retentionMonths).atDay(1);
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'prices'::regclass
+                ORDER BY c.relname
+                """, String.class);
+
+        for (String partition : expiredPartitions(partitions, cutoff)) {
+            // Un precio abierto o que termina después del corte sigue siendo consultable: la partición se queda
+            Boolean live = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + partition + " WHERE end_date IS NULL OR end_date >= ?)",
+                    Boolean.class, cutoff);
+            if (Boolean.TRUE.equals(live)) {
+                log.info("La partición {} tiene precios vigentes después de {}, no se archiva", partition, cutoff);
+                continue;
+            }
+            // DETACH ... CONCURRENTLY no se admite con partición por defecto: bloqueo breve y acotado por lock_timeout
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+                jdbcTemplate.execute("ALTER TABLE prices DETACH PARTITION " + partition);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA price_archive");
+            });
+            archivedPartitions.increment();
+            log.info("Partición {} archivada en price_archive", partition);
+        }
+    }
+
+    // Particiones mensuales (prices_pYYYYMM) que terminan antes del corte; ni la de histórico ni la por defecto
+    static List<String> expiredPartitions(List<String> partitions, LocalDate cutoff) {
+        YearMonth cutoffMonth = YearMonth.from(cutoff);
+        return partitions.stream()
+                .filter(name -> name.matches(PARTITION_PREFIX + "\\d{6}"))
+                .filter(name -> YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX)
+                        .isBefore(cutoffMonth))
+                .toList();
+    }
+}
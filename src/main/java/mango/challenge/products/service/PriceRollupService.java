@@ -0,0 +1,262 @@
+package mango.challenge.products.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.event.PriceChangedEvent;
+import mango.challenge.products.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mantenimiento de {@code price_monthly_rollups}. Tras el commit de cada cambio de precio se anotan los meses
+ * afectados (el de la fecha de inicio anterior y el de la nueva) y cada {@code flush-interval} se recalculan desde
+ * {@code prices} todos los pendientes, sin repetidos, en lotes de {@code flush-batch-size} con una transacción por lote
+ * y shard. Así una escritura agrupada de cientos de precios no encadena una transacción por evento en el hilo que la
+ * confirma, y el resultado no depende del orden en que lleguen los eventos. La reconstrucción completa reparte los
+ * productos de cada shard en rangos de ids que se recalculan en paralelo, cada uno en su propia transacción.
+ * <p>
+ * Los agregados van como mucho {@code flush-interval} por detrás de {@code prices}. Si un lote falla, sus meses
+ * vuelven a quedar pendientes para el siguiente intento. La reconstrucción no toca los meses de particiones
+ * archivadas.
+ */
+@Slf4j
+@Service
+public class PriceRollupService {
+
+    // Bloquear las filas de los productos serializa los recálculos del mismo producto (también con la reconstrucción)
+    // sin frenar las altas de precios, porque la clave foránea solo toma FOR KEY SHARE. Se bloquean en orden de id
+    // para que dos lotes no se esperen mutuamente
+    private static final String LOCK_PRODUCTS_SQL =
+            "SELECT id FROM products WHERE id = ANY(?) ORDER BY id FOR NO KEY UPDATE";
+
+    private static final String UPSERT_PRODUCT_MONTH_SQL = """
+            INSERT INTO price_monthly_rollups (product_id, month, changes, min_value, max_value, sum_value)
+            SELECT product_id, CAST(? AS DATE), COUNT(*), MIN(value), MAX(value), SUM(value)
+            FROM prices
+            WHERE product_id = ? AND init_date >= ? AND init_date < ?
+            GROUP BY product_id
+            ON CONFLICT (product_id, month) DO UPDATE SET changes = EXCLUDED.changes, min_value = EXCLUDED.min_value,
+                max_value = EXCLUDED.max_value, sum_value = EXCLUDED.sum_value, updated_at = CURRENT_TIMESTAMP
+            """;
+
+    // Meses que se han quedado sin precios
+    private static final String DELETE_EMPTY_PRODUCT_MONTH_SQL = """
+            DELETE FROM price_monthly_rollups r
+            WHERE r.product_id = ? AND r.month = ?
+              AND NOT EXISTS (SELECT 1 FROM prices p WHERE p.product_id = r.product_id AND p.init_date >= ? AND p.init_date < ?)
+            """;
+
+    private static final String LOCK_RANGE_SQL =
+            "SELECT id FROM products WHERE id BETWEEN ? AND ? ORDER BY id FOR NO KEY UPDATE";
+
+    // Los meses cuya partición está archivada en price_archive ya no tienen sus precios en prices: se conservan sus
+    // agregados tal como quedaron al archivarla
+    private static final String DELETE_RANGE_SQL = """
+            DELETE FROM price_monthly_rollups r
+            WHERE r.product_id BETWEEN ? AND ?
+              AND NOT EXISTS (SELECT 1 FROM pg_tables t
+                              WHERE t.schemaname = 'price_archive' AND t.tablename = 'prices_p' || to_char(r.month, 'YYYYMM'))
+            """;
+
+    private static final String INSERT_RANGE_SQL = """
+            INSERT INTO price_monthly_rollups (product_id, month, changes, min_value, max_value, sum_value)
+            SELECT product_id, date_trunc('month', init_date)::date, COUNT(*), MIN(value), MAX(value), SUM(value)
+            FROM prices
+            WHERE product_id BETWEEN ? AND ?
+            GROUP BY product_id, date_trunc('month', init_date)
+            ON CONFLICT (product_id, month) DO UPDATE SET changes = EXCLUDED.changes, min_value = EXCLUDED.min_value,
+                max_value = EXCLUDED.max_value, sum_value = EXCLUDED.sum_value, updated_at = CURRENT_TIMESTAMP
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate writeTransaction;
+    private final int rangeSize;
+    private final int parallelism;
+    private final int flushBatchSize;
+    private final Set<ProductMonth> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Counter refreshed;
+    private final Counter failed;
+
+    public PriceRollupService(JdbcTemplate jdbcTemplate,
+                              ShardRouter shardRouter,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.price-rollups.rebuild.range-size:1000}") int rangeSize,
+                              @Value("${app.price-rollups.rebuild.parallelism:4}") int parallelism,
+                              @Value("${app.price-rollups.flush-batch-size:500}") int flushBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        // Transacción propia: los recálculos no van en la transacción de ningún cambio de precio
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rangeSize = rangeSize;
+        this.parallelism = parallelism;
+        this.flushBatchSize = flushBatchSize;
+        this.refreshed = Counter.builder("price.rollups.refreshes").tag("result", "success").register(meterRegistry);
+        this.failed = Counter.builder("price.rollups.refreshes").tag("result", "failure").register(meterRegistry);
+        Gauge.builder("price.rollups.pending", pending, Set::size).register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPriceChanged(PriceChangedEvent event) {
+        affectedMonths(event).forEach(month -> pending.add(new ProductMonth(event.productId(), month)));
+    }
+
+    static SortedSet<LocalDate> affectedMonths(PriceChangedEvent event) {
+        SortedSet<LocalDate> months = new TreeSet<>();
+        if (event.before() != null) {
+            months.add(event.before().initDate().withDayOfMonth(1));
+        }
+        if (event.after() != null) {
+            months.add(event.after().initDate().withDayOfMonth(1));
+        }
+        return months;
+    }
+
+    // Los meses que se anotan durante el recálculo se quedan para la siguiente pasada
+    @Scheduled(fixedDelayString = "${app.price-rollups.flush-interval:1s}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<ProductMonth> drained = new ArrayList<>(pending);
+        pending.removeAll(drained);
+        shardRouter.partition(drained, ProductMonth::productId).forEach((shard, keys) -> {
+            for (int from = 0; from < keys.size(); from += flushBatchSize) {
+                List<ProductMonth> batch = keys.subList(from, Math.min(keys.size(), from + flushBatchSize));
+                try {
+                    shardRouter.runOn(shard, () -> writeTransaction.executeWithoutResult(status -> refresh(batch)));
+                    refreshed.increment(batch.size());
+                } catch (RuntimeException ex) {
+                    pending.addAll(batch);
+                    failed.increment(batch.size());
+                    log.warn("No se pudieron recalcular {} agregados mensuales, se reintentarán: {}",
+                            batch.size(), ex.getMessage());
+                }
+            }
+        });
+    }
+
+    // Cada sentencia lee con una instantánea posterior al bloqueo, así que ve todos los cambios confirmados
+    private void refresh(List<ProductMonth> batch) {
+        Long[] productIds = batch.stream().map(ProductMonth::productId).distinct().toArray(Long[]::new);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(LOCK_PRODUCTS_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", productIds));
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+
+        List<Object[]> upserts = new ArrayList<>(batch.size());
+        List<Object[]> deletes = new ArrayList<>(batch.size());
+        for (ProductMonth key : batch) {
+            Date start = Date.valueOf(key.month());
+            Date end = Date.valueOf(key.month().plusMonths(1));
+            upserts.add(new Object[]{start, key.productId(), start, end});
+            deletes.add(new Object[]{key.productId(), start, start, end});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_PRODUCT_MONTH_SQL, upserts);
+        jdbcTemplate.batchUpdate(DELETE_EMPTY_PRODUCT_MONTH_SQL, deletes);
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(cron = "${app.price-rollups.rebuild-cron:-}")
+    public void rebuildScheduled() {
+        rebuild();
+    }
+
+    // IllegalStateException si ya hay otra reconstrucción en curso en esta instancia
+    public RebuildResult rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una reconstrucción de agregados en curso");
+        }
+        long started = System.nanoTime();
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            long rows = 0;
+            try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+                for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                    int rangeShard = shard;
+                    Map<String, Object> bounds = shardRouter.callOn(shard, () -> jdbcTemplate.queryForMap(
+                            "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM products"));
+                    if (bounds.get("min_id") == null) {
+                        continue;
+                    }
+                    for (long[] range : ranges(((Number) bounds.get("min_id")).longValue(),
+                            ((Number) bounds.get("max_id")).longValue(), rangeSize)) {
+                        results.add(executor.submit(() -> shardRouter.callOn(rangeShard,
+                                () -> writeTransaction.execute(status -> rebuildRange(range[0], range[1])))));
+                    }
+                }
+                for (Future<Integer> result : results) {
+                    rows += result.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Reconstrucción de agregados interrumpida");
+            } catch (ExecutionException e) {
+                throw new CompletionException("Fallo al reconstruir los agregados mensuales", e.getCause());
+            }
+
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+            log.info("Agregados mensuales de precios reconstruidos: {} rangos, {} filas en {} ms",
+                    results.size(), rows, elapsed.toMillis());
+            return new RebuildResult(results.size(), rows, elapsed);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // Toma los mismos bloqueos que los recálculos incrementales, que esperan a que termine el rango
+    int rebuildRange(long fromId, long toId) {
+        jdbcTemplate.queryForList(LOCK_RANGE_SQL, Long.class, fromId, toId);
+        jdbcTemplate.update(DELETE_RANGE_SQL, fromId, toId);
+        return jdbcTemplate.update(INSERT_RANGE_SQL, fromId, toId);
+    }
+
+    // Rangos cerrados [desde, hasta] de como mucho rangeSize ids que cubren [minId, maxId]
+    static List<long[]> ranges(long minId, long maxId, int rangeSize) {
+        List<long[]> ranges = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += rangeSize) {
+            ranges.add(new long[]{from, Math.min(maxId, from + rangeSize - 1)});
+        }
+        return ranges;
+    }
+
+    public record RebuildResult(int ranges, long rows, Duration elapsed) {
+    }
+
+    record ProductMonth(long productId, LocalDate month) {
+    }
+}
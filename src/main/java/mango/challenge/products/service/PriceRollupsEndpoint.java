@@ -0,0 +1,36 @@
+package mango.challenge.products.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// POST /actuator/pricerollups: reconstruye price_monthly_rollups por rangos de productos en paralelo y espera al final
+@Component
+@Endpoint(id = "pricerollups")
+@RequiredArgsConstructor
+public class PriceRollupsEndpoint {
+
+    private static final int STATUS_CONFLICT = 409;
+
+    private final PriceRollupService priceRollupService;
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> rebuild() {
+        PriceRollupService.RebuildResult result;
+        try {
+            result = priceRollupService.rebuild();
+        } catch (IllegalStateException ex) {
+            return new WebEndpointResponse<>(Map.of("error", ex.getMessage()), STATUS_CONFLICT);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("ranges", result.ranges());
+        body.put("rows", result.rows());
+        body.put("elapsedMs", result.elapsed().toMillis());
+        return new WebEndpointResponse<>(body);
+    }
+}
@@ -1,31 +1,55 @@
 package mango.challenge.products.service;
 
+import io.micrometer.observation.annotation.Observed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import mango.challenge.products.cache.PriceTimeline;
+import mango.challenge.products.cache.PriceTimelineCache;
+import mango.challenge.products.dto.FieldsetPage;
+import mango.challenge.products.dto.PriceChangeResponse;
+import mango.challenge.products.dto.PriceField;
 import mango.challenge.products.dto.PriceRequest;
 import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.event.PriceChangedEvent;
+import mango.challenge.products.exception.PriceOverlapException;
 import mango.challenge.products.exception.ResourceNotFoundException;
 import mango.challenge.products.model.Price;
 import mango.challenge.products.model.Product;
 import mango.challenge.products.repository.PriceRepository;
+import mango.challenge.products.sharding.ScatterGather;
+import mango.challenge.products.sharding.ShardKey;
 import mango.challenge.products.specifications.PriceSpecifications;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Observed(name = "products.service")
 @RequiredArgsConstructor
 @Transactional
 public class PriceService {
 
     private final PriceRepository priceRepository;
     private final ProductService productService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PriceTimelineCache priceTimelineCache;
+    private final ScatterGather scatterGather;
 
-    public PriceResponse addPrice(Long productId, PriceRequest priceRequest) {
+    public PriceResponse addPrice(@ShardKey Long productId, PriceRequest priceRequest) {
         Product product = productService.getProductByIdOrThrow(productId);
 
         if (priceRepository.existsOverlappingPrice(
@@ -33,14 +57,16 @@ public class PriceService {
                 priceRequest.getInitDate(),
                 priceRequest.getEndDate()
         )) {
-            throw new IllegalArgumentException("El rango de fechas se solapa con otro precio existente");
+            throw new PriceOverlapException();
         }
 
-        return new PriceResponse(priceRepository.save(new Price(priceRequest, product)));
+        Price saved = priceRepository.save(new Price(priceRequest, product));
+        eventPublisher.publishEvent(PriceChangedEvent.created(productId, saved));
+        return new PriceResponse(saved);
     }
 
     public Page<PriceResponse> getPrices(
-            Long productId,
+            @ShardKey Long productId,
             LocalDate date,
             LocalDate fromDate,
             LocalDate toDate,
@@ -48,25 +74,134 @@ public class PriceService {
             BigDecimal maxValue,
             Pageable pageable) {
 
-        productService.getProductByIdOrThrow(productId);
+        productService.assertProductExists(productId);
 
-        Specification<Price> spec = PriceSpecifications.hasProduct(productId)
-                .and(PriceSpecifications.matchesDate(date))
-                .and(PriceSpecifications.fromDate(fromDate))
-                .and(PriceSpecifications.toDate(toDate))
-                .and(PriceSpecifications.minValue(minValue))
-                .and(PriceSpecifications.maxValue(maxValue));
+        // Precio vigente de un producto muy consultado: se resuelve con su historial fijado en memoria
+        if (date != null && fromDate == null && toDate == null && minValue == null && maxValue == null
+                && pageable.getOffset() == 0) {
+            Optional<PriceTimeline> timeline = priceTimelineCache.get(productId);
+            if (timeline.isPresent()) {
+                productService.assertProductNotDeleted(productId);
+                PriceResponse price = timeline.get().priceAt(date)
+                        .orElseThrow(() -> new IllegalArgumentException("No hay precio vigente para esta fecha"));
+                return new PageImpl<>(List.of(price), pageable, 1);
+            }
+        }
+
+        Specification<Price> spec = buildSpecification(productId, date, fromDate, toDate, minValue, maxValue);
 
         Page<PriceResponse> result = priceRepository.findAll(spec, pageable)
                 .map(PriceResponse::new);
 
+        if (result.isEmpty()) {
+            productService.assertProductNotDeleted(productId);
+        }
         if (date != null && result.isEmpty()) {
             throw new IllegalArgumentException("No hay precio vigente para esta fecha");
         }
         return result;
     }
 
-    public PriceResponse updatePrice(Long productId, Long priceId, PriceRequest priceRequest) {
+    // Solo selecciona las columnas pedidas y, si no se piden totales, evita la consulta COUNT
+    // pidiendo una fila de más para saber si hay página siguiente
+    public FieldsetPage getPriceFields(
+            @ShardKey Long productId,
+            LocalDate date,
+            LocalDate fromDate,
+            LocalDate toDate,
+            BigDecimal minValue,
+            BigDecimal maxValue,
+            List<PriceField> fields,
+            boolean includeTotals,
+            Pageable pageable) {
+
+        productService.assertProductExists(productId);
+
+        Specification<Price> spec = buildSpecification(productId, date, fromDate, toDate, minValue, maxValue);
+
+        List<Map<String, Object>> rows = priceRepository.findFields(spec, fields, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<Map<String, Object>> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+
+        if (content.isEmpty()) {
+            productService.assertProductNotDeleted(productId);
+        }
+        if (date != null && content.isEmpty()) {
+            throw new IllegalArgumentException("No hay precio vigente para esta fecha");
+        }
+
+        // Como PageableExecutionUtils: el total solo se deduce de la página si es la última y tiene contenido (o es la
+        // primera); una página pasado el final no dice cuántos elementos hay antes
+        Long totalElements = null;
+        if (includeTotals) {
+            totalElements = !hasNext && (!content.isEmpty() || pageable.getOffset() == 0)
+                    ? pageable.getOffset() + content.size()
+                    : priceRepository.count(spec);
+        }
+
+        return FieldsetPage.builder()
+                .content(content)
+                .page(pageable.getPageNumber())
+                .size(pageable.getPageSize())
+                .hasNext(hasNext)
+                .totalElements(totalElements)
+                .build();
+    }
+
+    private static Specification<Price> buildSpecification(
+            Long productId,
+            LocalDate date,
+            LocalDate fromDate,
+            LocalDate toDate,
+            BigDecimal minValue,
+            BigDecimal maxValue) {
+        return PriceSpecifications.hasProduct(productId)
+                .and(PriceSpecifications.matchesDate(date))
+                .and(PriceSpecifications.fromDate(fromDate))
+                .and(PriceSpecifications.toDate(toDate))
+                .and(PriceSpecifications.minValue(minValue))
+                .and(PriceSpecifications.maxValue(maxValue));
+    }
+
+    // Una sola consulta por shard para todos sus productos; los que no tienen precios quedan con una lista vacía. Como
+    // mucho limit precios por producto, del más reciente al más antiguo: el historial completo de un producto puede
+    // tener miles de filas
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Map<Long, List<PriceResponse>> getPricesByProductIds(Collection<Long> productIds, int limit) {
+        Map<Long, List<PriceResponse>> pricesByProduct = new HashMap<>();
+        productIds.forEach(productId -> pricesByProduct.put(productId, new ArrayList<>()));
+        scatterGather.byProduct(productIds, Long::longValue, shardIds -> priceRepository
+                        .findRecentByProductIdIn(shardIds, limit).stream()
+                        .map(PriceResponse::new)
+                        .toList())
+                .forEach(price -> pricesByProduct.get(price.getProductId()).add(price));
+        return pricesByProduct;
+    }
+
+    // Los productos sin precio vigente en la fecha no aparecen en el mapa
+    public Map<Long, PriceResponse> getPricesAtByProductIds(Collection<Long> productIds, LocalDate date) {
+        Map<Long, PriceResponse> pricesByProduct = new HashMap<>();
+        scatterGather.byProduct(productIds, Long::longValue, shardIds -> priceRepository.findPricesAt(shardIds, date))
+                .forEach(price -> pricesByProduct.put(price.getProductId(), price));
+        return pricesByProduct;
+    }
+
+    // Se recorre el cursor dentro de la transacción y cada cambio se entrega al consumidor sin acumularlo. Con
+    // sharding los shards se recorren uno detrás de otro y el orden por producto es el de cada shard
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void streamPriceChanges(LocalDate fromDate, LocalDate toDate, Consumer<PriceChangeResponse> consumer) {
+        scatterGather.eachShard(() -> {
+            try (Stream<PriceRepository.PriceChangeView> changes = priceRepository.streamPriceChanges(fromDate, toDate)) {
+                changes.forEach(change -> consumer.accept(PriceChangeResponse.builder()
+                        .productId(change.getProductId())
+                        .oldValue(change.getOldValue())
+                        .newValue(change.getNewValue())
+                        .build()));
+            }
+        });
+    }
+
+    public PriceResponse updatePrice(@ShardKey Long productId, Long priceId, PriceRequest priceRequest) {
         Product product = productService.getProductByIdOrThrow(productId);
 
         Price existingPrice = priceRepository.findById(priceId)
@@ -76,6 +211,8 @@ public class PriceService {
             throw new ResourceNotFoundException("El precio no pertenece al producto");
         }
 
+        PriceChangedEvent.Snapshot before = PriceChangedEvent.Snapshot.of(existingPrice);
+
         if (priceRequest.getValue() != null) {
             existingPrice.setValue(priceRequest.getValue());
         }
@@ -90,24 +227,35 @@ public class PriceService {
             throw new IllegalArgumentException("initDate debe ser menor que endDate");
         }
 
-        boolean overlap = product.getPrices().stream()
-                .filter(p -> !p.getId().equals(priceId))
-                .anyMatch(p ->
-                        (existingPrice.getEndDate() == null || p.getEndDate() == null
-                                ? existingPrice.getInitDate().isBefore(p.getEndDate() != null ? p.getEndDate().plusDays(1) : LocalDate.MAX)
-                                : !(existingPrice.getEndDate().isBefore(p.getInitDate()) || existingPrice.getInitDate().isAfter(p.getEndDate())))
-                );
-        if (overlap) {
-            throw new IllegalArgumentException("El rango de fechas se solapa con otro precio existente");
+        if (overlapsAny(existingPrice, product.getPrices())) {
+            throw new PriceOverlapException();
         }
 
-        return new PriceResponse(priceRepository.save(existingPrice));
+        Price saved = priceRepository.save(existingPrice);
+        eventPublisher.publishEvent(PriceChangedEvent.updated(productId, before, saved));
+        return new PriceResponse(saved);
+    }
+
+    public static boolean overlapsAny(Price price, Collection<Price> others) {
+        return others.stream()
+                .filter(p -> !p.getId().equals(price.getId()))
+                // Un endDate nulo es un rango abierto: solapan si cada uno empieza antes de que termine el otro
+                .anyMatch(p ->
+                        (p.getEndDate() == null || !price.getInitDate().isAfter(p.getEndDate()))
+                                && (price.getEndDate() == null || !p.getInitDate().isAfter(price.getEndDate()))
+                );
     }
 
-    public void deletePrice(Long productId, Long priceId) {
+    public void deletePrice(@ShardKey Long productId, Long priceId) {
+        // Imagen previa para la auditoría; el borrado sigue siendo una única sentencia condicionada al producto
+        PriceChangedEvent.Snapshot before = priceRepository.findByIdAndProductId(priceId, productId)
+                .map(PriceChangedEvent.Snapshot::of)
+                .orElse(null);
+
         if (priceRepository.deleteByIdAndProductId(priceId, productId) == 0) {
             throw new ResourceNotFoundException("Precio no encontrado para el producto especificado");
         }
+        eventPublisher.publishEvent(PriceChangedEvent.deleted(productId, priceId, before));
     }
 
 }
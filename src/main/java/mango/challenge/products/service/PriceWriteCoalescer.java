@@ -0,0 +1,335 @@
+package mango.challenge.products.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.dto.PriceRequest;
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.event.PriceChangedEvent;
+import mango.challenge.products.exception.PriceOverlapException;
+import mango.challenge.products.exception.ResourceNotFoundException;
+import mango.challenge.products.model.Price;
+import mango.challenge.products.model.Product;
+import mango.challenge.products.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo opcional de escritura agrupada para altas de precios ({@code app.write-coalescing.enabled}).
+ * <p>
+ * Las peticiones se encolan y un hilo las agrupa durante como mucho {@code max-delay} o hasta {@code max-batch-size}
+ * y las confirma en una sola transacción: una consulta de existencia de productos, una de precios que pueden
+ * solapar, los ids reservados de la secuencia y un único INSERT por lotes. Cada petición recibe su propio
+ * resultado; las que no pasan la validación fallan igual que con {@link PriceService#addPrice}, y si el lote
+ * entero falla en base de datos se reintenta cada petición por separado. Con sharding, el lote se parte por shard y
+ * cada parte se confirma en su propia transacción.
+ */
+@Slf4j
+@Service
+public class PriceWriteCoalescer {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO prices (id, product_id, value, init_date, end_date, created_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    // Solo los precios de cada producto que pueden solapar con alguna petición del lote
+    private static final String CANDIDATES_SQL = """
+            SELECT p.product_id, p.init_date, p.end_date
+            FROM prices p
+            JOIN unnest(?::bigint[], ?::date[], ?::date[]) AS r(product_id, min_init, max_end)
+              ON p.product_id = r.product_id
+            WHERE (p.end_date IS NULL OR p.end_date >= r.min_init)
+              AND p.init_date <= COALESCE(r.max_end, DATE 'infinity')
+            """;
+
+    private final PriceService priceService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final Duration maxDelay;
+    private final Duration offerTimeout;
+    private final BlockingQueue<PendingWrite> queue;
+    private final DistributionSummary batchSizes;
+    private final Timer writeLatency;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public PriceWriteCoalescer(PriceService priceService,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               ApplicationEventPublisher eventPublisher,
+                               ShardRouter shardRouter,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.write-coalescing.enabled:false}") boolean enabled,
+                               @Value("${app.write-coalescing.max-batch-size:200}") int maxBatchSize,
+                               @Value("${app.write-coalescing.max-delay:5ms}") Duration maxDelay,
+                               @Value("${app.write-coalescing.queue-capacity:10000}") int queueCapacity,
+                               @Value("${app.write-coalescing.offer-timeout:10ms}") Duration offerTimeout) {
+        this.priceService = priceService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.offerTimeout = offerTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("price.write.batch.size").register(meterRegistry);
+        this.writeLatency = Timer.builder("price.write.latency").publishPercentileHistogram().register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            running = true;
+            writer = Thread.ofPlatform().name("price-write-coalescer").daemon(true).start(this::writeLoop);
+        }
+    }
+
+    // Si la cola sigue llena tras offer-timeout, la petición se atiende por el camino normal en el hilo que llama
+    public CompletableFuture<PriceResponse> addPrice(Long productId, PriceRequest priceRequest) {
+        PendingWrite pending = new PendingWrite(productId, priceRequest, new CompletableFuture<>(), System.nanoTime());
+        try {
+            if (running && queue.offer(pending, offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return pending.result();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeIndividually(List.of(pending));
+        return pending.result();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(maxDelay.multipliedBy(100).toMillis());
+        }
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += maxBatchSize) {
+            write(remaining.subList(from, Math.min(remaining.size(), from + maxBatchSize)));
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelay.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error inesperado en la escritura agrupada de precios", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void write(List<PendingWrite> batch) {
+        batchSizes.record(batch.size());
+        shardRouter.partition(batch, PendingWrite::productId)
+                .forEach((shard, shardBatch) -> shardRouter.runOn(shard, () -> writeShard(shardBatch)));
+    }
+
+    private void writeShard(List<PendingWrite> batch) {
+        Map<PendingWrite, Object> outcomes;
+        try {
+            outcomes = transactionTemplate.execute(status -> writeBatch(batch));
+        } catch (RuntimeException e) {
+            log.warn("Falló el lote de {} altas de precio, se reintentan por separado", batch.size(), e);
+            writeIndividually(batch);
+            return;
+        }
+        // Los resultados se entregan después del commit
+        outcomes.forEach(PendingWrite::complete);
+        batch.forEach(pending -> writeLatency.record(System.nanoTime() - pending.enqueuedAt(), TimeUnit.NANOSECONDS));
+    }
+
+    private void writeIndividually(List<PendingWrite> batch) {
+        for (PendingWrite pending : batch) {
+            try {
+                pending.complete(priceService.addPrice(pending.productId(), pending.request()));
+            } catch (RuntimeException e) {
+                pending.complete(e);
+            }
+            writeLatency.record(System.nanoTime() - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Devuelve para cada petición su PriceResponse o la excepción con la que debe fallar
+    private Map<PendingWrite, Object> writeBatch(List<PendingWrite> batch) {
+        Map<PendingWrite, Object> outcomes = new LinkedHashMap<>();
+        Set<Long> existingProducts = findExistingProducts(batch);
+        Map<Long, List<Interval>> taken = findCandidateIntervals(batch);
+
+        List<PendingWrite> accepted = new ArrayList<>();
+        for (PendingWrite pending : batch) {
+            PriceRequest request = pending.request();
+            Interval interval = new Interval(request.getInitDate(), request.getEndDate());
+            if (!existingProducts.contains(pending.productId())) {
+                outcomes.put(pending, new ResourceNotFoundException("Producto no encontrado"));
+                continue;
+            }
+            List<Interval> productIntervals = taken.computeIfAbsent(pending.productId(), id -> new ArrayList<>());
+            // Se valida también contra las peticiones anteriores del mismo lote, en orden de llegada
+            if (productIntervals.stream().anyMatch(interval::overlaps)) {
+                outcomes.put(pending, new PriceOverlapException());
+                continue;
+            }
+            productIntervals.add(interval);
+            accepted.add(pending);
+        }
+        if (accepted.isEmpty()) {
+            return outcomes;
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT nextval('prices_id_seq') FROM generate_series(1, ?)", Long.class, accepted.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<Price> prices = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            PendingWrite pending = accepted.get(i);
+            Price price = new Price(pending.request(), Product.builder().id(pending.productId()).build());
+            price.setId(ids.get(i));
+            price.setCreatedAt(now);
+            prices.add(price);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, prices, prices.size(), (ps, price) -> {
+            ps.setLong(1, price.getId());
+            ps.setLong(2, price.getProduct().getId());
+            ps.setBigDecimal(3, price.getValue());
+            ps.setDate(4, Date.valueOf(price.getInitDate()));
+            ps.setDate(5, price.getEndDate() != null ? Date.valueOf(price.getEndDate()) : null);
+            ps.setTimestamp(6, Timestamp.valueOf(price.getCreatedAt()));
+        });
+
+        for (int i = 0; i < accepted.size(); i++) {
+            Price price = prices.get(i);
+            eventPublisher.publishEvent(PriceChangedEvent.created(price.getProduct().getId(), price));
+            outcomes.put(accepted.get(i), new PriceResponse(price));
+        }
+        return outcomes;
+    }
+
+    private Set<Long> findExistingProducts(List<PendingWrite> batch) {
+        Long[] productIds = batch.stream().map(PendingWrite::productId).distinct().toArray(Long[]::new);
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT id FROM products WHERE id = ANY(?) AND deleted_at IS NULL");
+            ps.setArray(1, connection.createArrayOf("bigint", productIds));
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1)));
+    }
+
+    private Map<Long, List<Interval>> findCandidateIntervals(List<PendingWrite> batch) {
+        // Por producto, el intervalo que cubre todas sus peticiones del lote
+        Map<Long, Interval> bounds = new HashMap<>();
+        for (PendingWrite pending : batch) {
+            Interval interval = new Interval(pending.request().getInitDate(), pending.request().getEndDate());
+            bounds.merge(pending.productId(), interval, Interval::span);
+        }
+        Long[] productIds = bounds.keySet().toArray(Long[]::new);
+        Date[] minInits = new Date[productIds.length];
+        Date[] maxEnds = new Date[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            Interval bound = bounds.get(productIds[i]);
+            minInits[i] = Date.valueOf(bound.initDate());
+            maxEnds[i] = bound.endDate() != null ? Date.valueOf(bound.endDate()) : null;
+        }
+
+        Map<Long, List<Interval>> intervals = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(CANDIDATES_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", productIds));
+            ps.setArray(2, connection.createArrayOf("date", minInits));
+            ps.setArray(3, connection.createArrayOf("date", maxEnds));
+            return ps;
+        }, rs -> {
+            intervals.computeIfAbsent(rs.getLong("product_id"), id -> new ArrayList<>()).add(new Interval(
+                    rs.getObject("init_date", LocalDate.class), rs.getObject("end_date", LocalDate.class)));
+        });
+        return intervals;
+    }
+
+    record PendingWrite(Long productId, PriceRequest request, CompletableFuture<PriceResponse> result, long enqueuedAt) {
+
+        void complete(Object outcome) {
+            if (outcome instanceof PriceResponse response) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally((Throwable) outcome);
+            }
+        }
+    }
+
+    // Intervalo cerrado de fechas; endDate null es abierto. Misma condición de solape que existsOverlappingPrice
+    record Interval(LocalDate initDate, LocalDate endDate) {
+
+        boolean overlaps(Interval other) {
+            return (other.endDate == null || !initDate.isAfter(other.endDate))
+                    && (endDate == null || !endDate.isBefore(other.initDate));
+        }
+
+        Interval span(Interval other) {
+            LocalDate init = initDate.isBefore(other.initDate) ? initDate : other.initDate;
+            LocalDate end = endDate == null || other.endDate == null ? null
+                    : endDate.isAfter(other.endDate) ? endDate : other.endDate;
+            return new Interval(init, end);
+        }
+    }
+}
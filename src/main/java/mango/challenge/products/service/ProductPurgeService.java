@@ -0,0 +1,107 @@
+package mango.challenge.products.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mango.challenge.products.repository.PriceRepository;
+import mango.challenge.products.repository.ProductRepository;
+import mango.challenge.products.sharding.EachShard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Purga en segundo plano de los productos borrados.
+ * <p>
+ * Los precios se borran en bloques de {@code chunk-size} filas, cada uno en su propia transacción y con una pausa
+ * entre bloques, para que los bloqueos y el WAL generado por cada commit queden acotados. La fila del producto se
+ * borra al final, cuando ya no le quedan precios. Si el proceso se interrumpe, la siguiente ejecución continúa
+ * donde se quedó.
+ * <p>
+ * Todas las réplicas ejecutan la purga: cada transacción reclama antes el producto con
+ * {@code FOR NO KEY UPDATE SKIP LOCKED}, y una réplica que lo encuentra reclamado pasa al siguiente producto en vez
+ * de esperar o de borrar los mismos precios a la vez.
+ */
+@Slf4j
+@Service
+public class ProductPurgeService {
+
+    private final ProductRepository productRepository;
+    private final PriceRepository priceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int productsPerRun;
+    private final Duration pause;
+    private final Counter purgedPrices;
+    private final Counter purgedProducts;
+    private final AtomicLong pendingProducts = new AtomicLong();
+
+    public ProductPurgeService(ProductRepository productRepository,
+                               PriceRepository priceRepository,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.purge.chunk-size:500}") int chunkSize,
+                               @Value("${app.purge.products-per-run:10}") int productsPerRun,
+                               @Value("${app.purge.pause:20ms}") Duration pause) {
+        this.productRepository = productRepository;
+        this.priceRepository = priceRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.productsPerRun = productsPerRun;
+        this.pause = pause;
+        this.purgedPrices = Counter.builder("purge.prices.deleted").register(meterRegistry);
+        this.purgedProducts = Counter.builder("purge.products.completed").register(meterRegistry);
+        Gauge.builder("purge.products.pending", pendingProducts, AtomicLong::get).register(meterRegistry);
+    }
+
+    @EachShard
+    @Scheduled(fixedDelayString = "${app.purge.interval:10s}", initialDelayString = "${app.purge.interval:10s}")
+    public void purgeDeletedProducts() {
+        pendingProducts.set(productRepository.countPendingPurge());
+        List<Long> productIds = productRepository.findPendingPurgeIds(productsPerRun);
+        try {
+            for (Long productId : productIds) {
+                purge(productId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pendingProducts.set(productRepository.countPendingPurge());
+    }
+
+    void purge(Long productId) throws InterruptedException {
+        int deleted;
+        do {
+            Integer chunk = transactionTemplate.execute(status -> claim(productId)
+                    ? priceRepository.deleteChunkByProductId(productId, chunkSize)
+                    : null);
+            if (chunk == null) {
+                log.debug("El producto {} lo está purgando otra réplica", productId);
+                return;
+            }
+            deleted = chunk;
+            purgedPrices.increment(deleted);
+            if (deleted == chunkSize && !pause.isZero()) {
+                Thread.sleep(pause);
+            }
+        } while (deleted == chunkSize);
+
+        Integer removed = transactionTemplate.execute(status -> claim(productId)
+                ? productRepository.deletePurged(productId)
+                : 0);
+        if (removed != null && removed > 0) {
+            purgedProducts.increment();
+            log.info("Producto {} purgado", productId);
+        }
+    }
+
+    private boolean claim(Long productId) {
+        return productRepository.claimForPurge(productId).isPresent();
+    }
+}
@@ -1,39 +1,125 @@
 package mango.challenge.products.service;
 
+import io.micrometer.observation.annotation.Observed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import mango.challenge.products.cache.ProductExistenceCache;
+import mango.challenge.products.dto.ProductField;
 import mango.challenge.products.dto.ProductRequest;
 import mango.challenge.products.dto.ProductResponse;
+import mango.challenge.products.event.ProductDeletedEvent;
 import mango.challenge.products.exception.ResourceNotFoundException;
 import mango.challenge.products.model.Product;
 import mango.challenge.products.repository.ProductRepository;
+import mango.challenge.products.sharding.NewProductShard;
+import mango.challenge.products.sharding.ScatterGather;
+import mango.challenge.products.sharding.ShardKey;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 @Service
+@Observed(name = "products.service")
 @RequiredArgsConstructor
 @Transactional
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ScatterGather scatterGather;
+    private final ProductExistenceCache productExistenceCache;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @NewProductShard
     public ProductResponse createProduct(ProductRequest productRequest) {
         return new ProductResponse(productRepository.save(new Product(productRequest)));
     }
 
-    public ProductResponse getProductById(Long id) {
+    public ProductResponse getProductById(@ShardKey Long id) {
         return new ProductResponse(getProductByIdOrThrow(id));
     }
 
-    public Product getProductByIdOrThrow(Long id) {
+    public Product getProductByIdOrThrow(@ShardKey Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
     }
 
-    public List<ProductResponse> getAllProducts() {
-        return productRepository.findAll().stream()
+    // Para quien solo necesita saber que el producto existe: los ids ya conocidos (precargados al arrancar o
+    // comprobados antes) no van a base de datos. La caché no se entera de los borrados de otras réplicas, así que
+    // quien la usa filtra deleted_at en su propia consulta o llama después a assertProductNotDeleted
+    public void assertProductExists(@ShardKey Long id) {
+        if (productExistenceCache.contains(id)) {
+            return;
+        }
+        if (!productRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Producto no encontrado");
+        }
+        productExistenceCache.add(id);
+    }
+
+    // Siempre en base de datos: para respuestas servidas desde memoria o consultas que no devolvieron filas, que
+    // pueden deberse a un borrado hecho en otra réplica
+    public void assertProductNotDeleted(@ShardKey Long id) {
+        if (!productRepository.existsById(id)) {
+            productExistenceCache.remove(id);
+            throw new ResourceNotFoundException("Producto no encontrado");
+        }
+    }
+
+    // Borrado lógico: el producto deja de verse al instante y ProductPurgeService purga sus precios por bloques.
+    // Hasta el commit otra petición puede ver aún el producto y volver a añadirlo a la caché de existencia, así que
+    // también se quita tras el commit (ProductDeletedEvent)
+    public void deleteProduct(@ShardKey Long id) {
+        productExistenceCache.remove(id);
+        if (productRepository.markDeleted(id, LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("Producto no encontrado");
+        }
+        eventPublisher.publishEvent(new ProductDeletedEvent(id));
+    }
+
+    // Las consultas de varios productos se reparten entre los shards que los contienen (ScatterGather), cada una
+    // con su propia transacción
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public List<ProductResponse> getProductsByIds(Collection<Long> ids) {
+        return scatterGather.byProduct(ids, Long::longValue, shardIds -> productRepository.findAllById(shardIds).stream()
                 .map(ProductResponse::new)
+                .toList());
+    }
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public List<ProductResponse> getAllProducts() {
+        return scatterGather.onAllShards(() -> productRepository.findAll().stream()
+                        .map(ProductResponse::new)
+                        .toList())
+                .stream()
+                .sorted(Comparator.comparing(ProductResponse::getId))
+                .toList();
+    }
+
+    // Cada shard devuelve sus filas ordenadas por id; el resultado combinado solo se puede reordenar si se pide el id
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public List<Map<String, Object>> getAllProductFields(List<ProductField> fields) {
+        List<Map<String, Object>> rows = scatterGather.onAllShards(() ->
+                productRepository.findFields(null, fields, Pageable.unpaged(Sort.by("id")), Integer.MAX_VALUE));
+        if (!fields.contains(ProductField.ID)) {
+            return rows;
+        }
+        return rows.stream()
+                .sorted(Comparator.comparingLong(row -> ((Number) row.get("id")).longValue()))
                 .toList();
     }
+
+    public Map<String, Object> getProductFieldsById(@ShardKey Long id, List<ProductField> fields) {
+        Specification<Product> byId = (root, query, cb) -> cb.equal(root.get("id"), id);
+        return productRepository.findFields(byId, fields, Pageable.unpaged(), 1).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package mango.challenge.products.service;
+
+import lombok.RequiredArgsConstructor;
+import mango.challenge.products.cache.PriceTimelineCache;
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.exception.ResourceNotFoundException;
+import mango.challenge.products.repository.ReactivePriceRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@Service
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ReactivePriceService {
+
+    private final ReactivePriceRepository reactivePriceRepository;
+    private final PriceTimelineCache priceTimelineCache;
+
+    public Mono<PriceResponse> getPriceAt(Long productId, LocalDate date) {
+        Mono<PriceResponse> price = priceTimelineCache.get(productId)
+                .map(timeline -> Mono.justOrEmpty(timeline.priceAt(date)))
+                .orElseGet(() -> reactivePriceRepository.findPriceAt(productId, date));
+        return requireProduct(productId)
+                .then(price)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("No hay precio vigente para esta fecha")));
+    }
+
+    public Flux<PriceResponse> getPriceHistory(Long productId, LocalDate fromDate, LocalDate toDate) {
+        return requireProduct(productId)
+                .thenMany(reactivePriceRepository.findHistory(productId, fromDate, toDate));
+    }
+
+    private Mono<Void> requireProduct(Long productId) {
+        return reactivePriceRepository.existsProduct(productId)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Producto no encontrado")))
+                .then();
+    }
+}
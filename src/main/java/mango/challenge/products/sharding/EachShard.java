@@ -0,0 +1,12 @@
+package mango.challenge.products.sharding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Tarea de mantenimiento sin valor de retorno que se repite en cada shard, uno detrás de otro
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EachShard {
+}
@@ -0,0 +1,12 @@
+package mango.challenge.products.sharding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Alta de un producto: el método se ejecuta en el siguiente shard del reparto por turnos y el id lo genera su secuencia
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface NewProductShard {
+}
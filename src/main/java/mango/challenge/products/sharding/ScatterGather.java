@@ -0,0 +1,122 @@
+package mango.challenge.products.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Consultas que abarcan varios productos: se lanzan en paralelo en cada shard implicado, cada una en su propia
+ * transacción de solo lectura, y se devuelven concatenadas en orden de shard. Ordenar o paginar el resultado
+ * combinado es cosa de quien llama. Con un único shard la consulta se ejecuta directamente en el hilo actual.
+ */
+public class ScatterGather implements DisposableBean {
+
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readTransaction;
+    private final Duration timeout;
+    private final ExecutorService executor;
+
+    public ScatterGather(ShardRouter shardRouter, PlatformTransactionManager transactionManager,
+                         Duration timeout, int threads) {
+        this.shardRouter = shardRouter;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.timeout = timeout;
+        this.executor = shardRouter.getShardCount() > 1 ? Executors.newFixedThreadPool(threads, daemonThreads()) : null;
+    }
+
+    public static ScatterGather singleShard(PlatformTransactionManager transactionManager) {
+        return new ScatterGather(ShardRouter.single(), transactionManager, Duration.ZERO, 1);
+    }
+
+    public <T> List<T> onAllShards(Supplier<List<T>> query) {
+        Map<Integer, Supplier<List<T>>> tasks = new TreeMap<>();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            tasks.put(shard, query);
+        }
+        return gather(tasks);
+    }
+
+    // Cada shard recibe solo los elementos de sus productos; los shards sin elementos no se consultan
+    public <K, T> List<T> byProduct(Collection<K> items, ToLongFunction<K> productId, Function<List<K>, List<T>> query) {
+        Map<Integer, Supplier<List<T>>> tasks = new TreeMap<>();
+        shardRouter.partition(items, productId).forEach((shard, shardItems) -> tasks.put(shard, () -> query.apply(shardItems)));
+        return gather(tasks);
+    }
+
+    // Un shard detrás de otro en el hilo actual, para cursores que entregan las filas a un único consumidor
+    public void eachShard(Runnable action) {
+        shardRouter.forEachShard(() -> readTransaction.executeWithoutResult(status -> action.run()));
+    }
+
+    private <T> List<T> gather(Map<Integer, Supplier<List<T>>> tasks) {
+        List<T> result = new ArrayList<>();
+        if (executor == null || tasks.size() == 1) {
+            tasks.forEach((shard, query) -> result.addAll(inTransaction(shard, query)));
+            return result;
+        }
+
+        List<Future<List<T>>> futures = new ArrayList<>();
+        tasks.forEach((shard, query) -> futures.add(executor.submit(() -> inTransaction(shard, query))));
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            for (Future<List<T>> future : futures) {
+                result.addAll(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            }
+            return result;
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Algún shard no respondió en " + timeout.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Consulta a los shards interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private <T> List<T> inTransaction(int shard, Supplier<List<T>> query) {
+        return shardRouter.callOn(shard, () -> readTransaction.execute(status -> query.get()));
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "shard-scatter-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
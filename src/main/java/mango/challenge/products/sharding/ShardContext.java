@@ -0,0 +1,40 @@
+package mango.challenge.products.sharding;
+
+import java.util.function.Supplier;
+
+// Shard del hilo actual, que ShardRoutingDataSource usa al pedir una conexión. Se fija siempre antes de abrir la
+// transacción: una vez obtenida la conexión, cambiarlo no tiene efecto hasta la siguiente
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    static <T> T callOn(int shard, Supplier<T> action) {
+        Integer previous = enter(shard);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    static Integer enter(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(Integer previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
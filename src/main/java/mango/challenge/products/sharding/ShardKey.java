@@ -0,0 +1,12 @@
+package mango.challenge.products.sharding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Id de producto por el que ShardRoutingAspect elige el shard antes de abrir la transacción del método
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
@@ -0,0 +1,107 @@
+package mango.challenge.products.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reparto de ids de cada shard: el shard {@code i} de {@code N} solo guarda productos con {@code id mod N = i} y
+ * sus secuencias de productos y precios avanzan de {@code N} en {@code N} desde un valor de ese resto, así que los
+ * ids son únicos entre shards y {@link ShardRouter} deduce el shard del propio id.
+ * <p>
+ * {@link #verify} se ejecuta al crear el DataSource de cada shard e impide arrancar con un shard sin alinear (por
+ * ejemplo, una copia de una base de datos sin sharding) o con {@code app.sharding.urls} en otro orden.
+ * {@link #align} es un paso explícito ({@code app.sharding.align}) que se lanza una vez sobre copias de la misma base
+ * de datos, antes de que ningún shard reciba escrituras.
+ */
+@Slf4j
+final class ShardLayout {
+
+    // Secuencia y tabla cuyos ids genera
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCES.put("products_id_seq", "products");
+        SEQUENCES.put("prices_id_seq", "prices");
+    }
+
+    private static final String INCREMENT_SQL = """
+            SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?
+            """;
+
+    private ShardLayout() {
+    }
+
+    static void verify(DataSource shard, int shardIndex, int shardCount) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shard);
+        SEQUENCES.keySet().forEach(sequence -> {
+            SequenceState state = state(jdbcTemplate, sequence);
+            if (state.incrementBy() == shardCount && !state.alignedTo(shardIndex, shardCount)) {
+                throw new IllegalStateException("El shard " + shardIndex + " genera ids de resto "
+                        + Math.floorMod(state.lastValue(), shardCount) + " en " + sequence
+                        + ": el orden de app.sharding.urls no es el del reparto");
+            }
+            if (!state.alignedTo(shardIndex, shardCount)) {
+                throw new IllegalStateException("El shard " + shardIndex + " no está repartido en " + shardCount
+                        + " shards (" + sequence + " avanza de " + state.incrementBy() + " en "
+                        + state.incrementBy() + "): alinéalo con el modo migrate y app.sharding.align=true");
+            }
+        });
+    }
+
+    /**
+     * Quita los productos de otros shards (sus precios y agregados se borran en cascada; la auditoría, de solo
+     * inserción, conserva sus filas) y alinea las secuencias a su resto, en una transacción. Todas las copias tienen
+     * las secuencias en el mismo punto, así que el siguiente id de cada shard queda por encima de cualquier id ya
+     * asignado en cualquiera de ellos. Un shard ya alineado no se toca; uno repartido con otro número de shards o en
+     * otro orden se rechaza.
+     */
+    static void align(DataSource shard, int shardIndex, int shardCount) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shard);
+        new TransactionTemplate(new DataSourceTransactionManager(shard)).executeWithoutResult(status -> {
+            boolean aligned = true;
+            for (String sequence : SEQUENCES.keySet()) {
+                SequenceState state = state(jdbcTemplate, sequence);
+                if (!state.alignedTo(shardIndex, shardCount) && state.incrementBy() != 1) {
+                    throw new IllegalStateException("El shard " + shardIndex + " ya está repartido de otra forma ("
+                            + sequence + " avanza de " + state.incrementBy() + " en " + state.incrementBy()
+                            + ", último id " + state.lastValue() + "), no se vuelve a alinear");
+                }
+                aligned &= state.alignedTo(shardIndex, shardCount);
+            }
+            if (aligned) {
+                log.info("Shard {} de {} ya alineado", shardIndex, shardCount);
+                return;
+            }
+
+            int removed = jdbcTemplate.update("DELETE FROM products WHERE mod(id, ?) <> ?", shardCount, shardIndex);
+            SEQUENCES.forEach((sequence, table) -> {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + shardCount);
+                jdbcTemplate.queryForObject("SELECT setval(?::regclass, start + mod(? - mod(start, ?) + ?, ?), false) "
+                                + "FROM (SELECT GREATEST(last_value, (SELECT COALESCE(max(id), 0) FROM " + table + ")) + 1 "
+                                + "AS start FROM " + sequence + ") s",
+                        Long.class, sequence, shardIndex, shardCount, shardCount, shardCount);
+            });
+            log.info("Shard {} de {} alineado: {} productos de otros shards eliminados", shardIndex, shardCount, removed);
+        });
+    }
+
+    private static SequenceState state(JdbcTemplate jdbcTemplate, String sequence) {
+        Long incrementBy = jdbcTemplate.queryForObject(INCREMENT_SQL, Long.class, sequence);
+        Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM " + sequence, Long.class);
+        return new SequenceState(incrementBy, lastValue);
+    }
+
+    // last_value conserva el resto tanto antes como después del primer nextval tras alinear
+    record SequenceState(long incrementBy, long lastValue) {
+
+        boolean alignedTo(int shardIndex, int shardCount) {
+            return incrementBy == shardCount && Math.floorMod(lastValue, shardCount) == shardIndex;
+        }
+    }
+}
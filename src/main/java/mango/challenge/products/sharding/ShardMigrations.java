@@ -0,0 +1,27 @@
+package mango.challenge.products.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+
+import javax.sql.DataSource;
+
+// Flyway por shard: todos comparten las migraciones. El reparto de ids no es una migración (se aplicaría una sola vez
+// y también sin sharding), sino un paso aparte de ShardLayout
+@Slf4j
+final class ShardMigrations {
+
+    private ShardMigrations() {
+    }
+
+    static void migrate(DataSource shard, int shardIndex, String[] locations) {
+        MigrateResult result = Flyway.configure()
+                .dataSource(shard)
+                .locations(locations)
+                .baselineOnMigrate(true)
+                .load()
+                .migrate();
+        log.info("Shard {}: {} migraciones aplicadas, versión del esquema {}",
+                shardIndex, result.migrationsExecuted, result.targetSchemaVersion);
+    }
+}
@@ -0,0 +1,81 @@
+package mango.challenge.products.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reparto de productos entre shards: un producto y todos sus precios viven en el shard {@code id mod N}. Las
+ * secuencias de cada shard solo generan ids de su resto ({@link ShardLayout}), así que los ids son únicos
+ * entre shards y el shard se deduce del propio id. Los productos nuevos se reparten por turnos.
+ * <p>
+ * Sin sharding hay un único shard y las operaciones se ejecutan tal cual, sin fijar {@link ShardContext}.
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+    private final boolean routed;
+    private final AtomicInteger nextNewProductShard = new AtomicInteger();
+
+    public ShardRouter(int shardCount, boolean routed) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Debe haber al menos un shard");
+        }
+        this.shardCount = shardCount;
+        this.routed = routed;
+    }
+
+    public static ShardRouter single() {
+        return new ShardRouter(1, false);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public boolean isRouted() {
+        return routed;
+    }
+
+    public int shardFor(long productId) {
+        return Math.floorMod(productId, shardCount);
+    }
+
+    public int shardForNewProduct() {
+        return Math.floorMod(nextNewProductShard.getAndIncrement(), shardCount);
+    }
+
+    public <T> T callOn(int shard, Supplier<T> action) {
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Shard inexistente: " + shard);
+        }
+        return routed ? ShardContext.callOn(shard, action) : action.get();
+    }
+
+    public void runOn(int shard, Runnable action) {
+        callOn(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public void forEachShard(Runnable action) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            runOn(shard, action);
+        }
+    }
+
+    // Agrupa los elementos por el shard de su producto, en orden de shard
+    public <K> Map<Integer, List<K>> partition(Collection<K> items, ToLongFunction<K> productId) {
+        Map<Integer, List<K>> byShard = new TreeMap<>();
+        for (K item : items) {
+            byShard.computeIfAbsent(shardFor(productId.applyAsLong(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return byShard;
+    }
+}
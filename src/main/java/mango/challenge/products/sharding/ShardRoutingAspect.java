@@ -0,0 +1,88 @@
+package mango.challenge.products.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Fija el shard de las llamadas a los servicios según @ShardKey, @NewProductShard o @EachShard. Va por delante de
+// @Transactional para que la conexión de la transacción ya se pida al shard correcto
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ShardRoutingAspect {
+
+    private final ShardRouter shardRouter;
+    private final Map<Method, Routing> routings = new ConcurrentHashMap<>();
+
+    @Around("execution(public * mango.challenge.products.service..*(..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!shardRouter.isRouted()) {
+            return joinPoint.proceed();
+        }
+        Routing routing = routings.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(), Routing::of);
+        return switch (routing.kind()) {
+            case NONE -> joinPoint.proceed();
+            case KEY -> {
+                if (!(joinPoint.getArgs()[routing.keyIndex()] instanceof Number productId)) {
+                    throw new IllegalArgumentException("Falta el id de producto");
+                }
+                yield proceedOn(shardRouter.shardFor(productId.longValue()), joinPoint);
+            }
+            case NEW_PRODUCT -> proceedOn(shardRouter.shardForNewProduct(), joinPoint);
+            case EACH_SHARD -> {
+                for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                    proceedOn(shard, joinPoint);
+                }
+                yield null;
+            }
+        };
+    }
+
+    // Una llamada anidada a otro shard usaría sin saberlo la conexión ya abierta del primero
+    private static Object proceedOn(int shard, ProceedingJoinPoint joinPoint) throws Throwable {
+        Integer current = ShardContext.current();
+        if (current != null && current != shard) {
+            throw new IllegalStateException("Operación sobre el shard " + shard + " dentro de otra del shard " + current);
+        }
+        Integer previous = ShardContext.enter(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private enum Kind {NONE, KEY, NEW_PRODUCT, EACH_SHARD}
+
+    private record Routing(Kind kind, int keyIndex) {
+
+        static Routing of(Method method) {
+            if (method.isAnnotationPresent(EachShard.class)) {
+                return new Routing(Kind.EACH_SHARD, -1);
+            }
+            if (method.isAnnotationPresent(NewProductShard.class)) {
+                return new Routing(Kind.NEW_PRODUCT, -1);
+            }
+            Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+            for (int i = 0; i < parameterAnnotations.length; i++) {
+                for (Annotation annotation : parameterAnnotations[i]) {
+                    if (annotation instanceof ShardKey) {
+                        return new Routing(Kind.KEY, i);
+                    }
+                }
+            }
+            return new Routing(Kind.NONE, -1);
+        }
+    }
+}
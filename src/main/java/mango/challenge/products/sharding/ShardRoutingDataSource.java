@@ -0,0 +1,31 @@
+package mango.challenge.products.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+// Entrega conexiones del shard fijado en ShardContext. Durante el arranque (validación del esquema por Hibernate,
+// comprobaciones de Spring) las peticiones sin shard van al shard 0, que tiene el mismo esquema que el resto; una
+// vez arrancada la aplicación, una conexión sin shard es un error de enrutado y se rechaza
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private volatile boolean routingEnforced;
+
+    public void enforceRouting() {
+        this.routingEnforced = true;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    @Override
+    protected DataSource determineTargetDataSource() {
+        if (routingEnforced && ShardContext.current() == null) {
+            throw new IllegalStateException("Conexión pedida sin shard asignado: la operación debe pasar por "
+                    + "@ShardKey, @EachShard o ScatterGather");
+        }
+        return super.determineTargetDataSource();
+    }
+}
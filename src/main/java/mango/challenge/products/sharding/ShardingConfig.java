@@ -0,0 +1,132 @@
+package mango.challenge.products.sharding;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class ShardingConfig {
+
+    @Bean
+    public ShardRouter shardRouter(@Value("${app.sharding.enabled:false}") boolean enabled,
+                                   @Value("${app.sharding.urls:}") List<String> urls) {
+        return enabled ? new ShardRouter(urls.size(), true) : ShardRouter.single();
+    }
+
+    @Bean
+    public ScatterGather scatterGather(ShardRouter shardRouter,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.sharding.scatter-timeout:10s}") Duration timeout,
+                                       @Value("${app.sharding.scatter-threads:0}") int threads) {
+        return new ScatterGather(shardRouter, transactionManager, timeout,
+                threads > 0 ? threads : 4 * shardRouter.getShardCount());
+    }
+
+    // Sustituye al indicador "db" (management.health.db.enabled=false), que pediría una conexión sin shard
+    @Bean
+    @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+    public HealthIndicator shardsHealthIndicator(ShardRouter shardRouter, JdbcTemplate jdbcTemplate) {
+        return () -> {
+            Health.Builder health = Health.up();
+            for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                try {
+                    shardRouter.callOn(shard, () -> jdbcTemplate.queryForObject("SELECT 1", Integer.class));
+                    health.withDetail("shard-" + shard, "UP");
+                } catch (RuntimeException ex) {
+                    health.down().withDetail("shard-" + shard, ex.getMessage());
+                }
+            }
+            return health.build();
+        };
+    }
+
+    /**
+     * Un pool de Hikari por shard detrás de un único DataSource enrutado, que es el que usan JPA, JdbcTemplate y el
+     * proxy de métricas de DataSourceProxyConfig. Las migraciones se aplican aquí, shard a shard, antes de que
+     * Hibernate valide el esquema: Flyway de Spring Boot debe estar desactivado porque solo vería el shard 0. Después
+     * se comprueba que cada shard genera ids de su resto ({@link ShardLayout}); si no, la aplicación no arranca.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+    public static class ShardedDataSourceConfig {
+
+        private final List<HikariDataSource> shards = new ArrayList<>();
+        private ShardRoutingDataSource routing;
+
+        @Bean
+        public DataSource dataSource(@Value("${app.sharding.urls}") List<String> urls,
+                                     @Value("${app.sharding.username:${spring.datasource.username}}") String username,
+                                     @Value("${app.sharding.password:${spring.datasource.password}}") String password,
+                                     @Value("${app.sharding.pool-size:10}") int poolSize,
+                                     @Value("${app.sharding.migrate:true}") boolean migrate,
+                                     @Value("${app.sharding.align:false}") boolean align,
+                                     @Value("${spring.flyway.enabled:true}") boolean springFlyway,
+                                     @Value("${spring.flyway.locations:classpath:db/migration}") String[] locations,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+            if (springFlyway) {
+                throw new IllegalStateException("Con sharding las migraciones se aplican en cada shard: "
+                        + "desactiva spring.flyway.enabled (perfil sharded)");
+            }
+
+            Map<Object, Object> targets = new HashMap<>();
+            for (int shard = 0; shard < urls.size(); shard++) {
+                HikariConfig config = new HikariConfig();
+                config.setPoolName("products-shard-" + shard);
+                config.setJdbcUrl(urls.get(shard));
+                config.setUsername(username);
+                config.setPassword(password);
+                config.setMaximumPoolSize(poolSize);
+                config.addDataSourceProperty("reWriteBatchedInserts", "true");
+                meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+                HikariDataSource dataSource = new HikariDataSource(config);
+                shards.add(dataSource);
+                if (migrate) {
+                    ShardMigrations.migrate(dataSource, shard, locations);
+                }
+                if (align) {
+                    ShardLayout.align(dataSource, shard, urls.size());
+                }
+                ShardLayout.verify(dataSource, shard, urls.size());
+                targets.put(shard, dataSource);
+            }
+
+            routing = new ShardRoutingDataSource();
+            routing.setTargetDataSources(targets);
+            routing.setDefaultTargetDataSource(shards.getFirst());
+            routing.afterPropertiesSet();
+            return routing;
+        }
+
+        @EventListener(ApplicationReadyEvent.class)
+        public void enforceRouting() {
+            if (routing != null) {
+                routing.enforceRouting();
+            }
+        }
+
+        @PreDestroy
+        public void closeShards() {
+            shards.forEach(HikariDataSource::close);
+        }
+    }
+}
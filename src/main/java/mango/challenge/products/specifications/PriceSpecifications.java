@@ -1,14 +1,24 @@
 package mango.challenge.products.specifications;
 
+import jakarta.persistence.criteria.Join;
 import mango.challenge.products.model.Price;
+import mango.challenge.products.model.Product;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 public class PriceSpecifications {
+    // El join con products descarta los precios de un producto borrado aunque la caché de existencia de esta réplica
+    // aún no lo sepa
     public static Specification<Price> hasProduct(Long productId) {
-        return (root, query, cb) -> cb.equal(root.get("product").get("id"), productId);
+        return (root, query, cb) -> {
+            Join<Price, Product> product = root.join("product");
+            return cb.and(
+                    cb.equal(product.get("id"), productId),
+                    cb.isNull(product.get("deletedAt"))
+            );
+        };
     }
 
     public static Specification<Price> matchesDate(LocalDate date) {
@@ -27,9 +37,14 @@ public class PriceSpecifications {
                 cb.greaterThanOrEqualTo(root.get("initDate"), fromDate);
     }
 
+    // init_date < end_date, así que la cota sobre initDate no cambia el resultado pero permite descartar
+    // las particiones posteriores a toDate
     public static Specification<Price> toDate(LocalDate toDate) {
         return (root, query, cb) -> toDate == null ? null :
-                cb.lessThanOrEqualTo(root.get("endDate"), toDate);
+                cb.and(
+                        cb.lessThan(root.get("initDate"), toDate),
+                        cb.lessThanOrEqualTo(root.get("endDate"), toDate)
+                );
     }
 
     public static Specification<Price> minValue(BigDecimal minValue) {
@@ -0,0 +1,29 @@
+-- Auditoría de cambios de precios (solo inserciones)
+-- Sin clave foránea a products: el historial debe sobrevivir al borrado del producto
+CREATE TABLE price_audit (
+    id BIGSERIAL PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    price_id BIGINT NOT NULL,
+    operation VARCHAR(10) NOT NULL,
+    old_value NUMERIC(10,2),
+    old_init_date DATE,
+    old_end_date DATE,
+    new_value NUMERIC(10,2),
+    new_init_date DATE,
+    new_end_date DATE,
+    changed_at TIMESTAMP NOT NULL,
+    CONSTRAINT chk_audit_operation CHECK (operation IN ('CREATE', 'UPDATE', 'DELETE'))
+);
+
+CREATE INDEX idx_price_audit_product ON price_audit(product_id, changed_at);
+
+-- La tabla es de solo inserción: se rechaza cualquier UPDATE o DELETE
+CREATE FUNCTION price_audit_append_only() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'price_audit es de solo inserción';
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_price_audit_append_only
+    BEFORE UPDATE OR DELETE ON price_audit
+    FOR EACH ROW EXECUTE FUNCTION price_audit_append_only();
@@ -0,0 +1,6 @@
+-- Borrado lógico de productos: el producto deja de ser visible al instante y sus precios
+-- se purgan en segundo plano por bloques antes de borrar la fila
+ALTER TABLE products ADD COLUMN deleted_at TIMESTAMP;
+
+-- Índice parcial: solo contiene los productos pendientes de purga
+CREATE INDEX idx_products_pending_purge ON products(deleted_at) WHERE deleted_at IS NOT NULL;
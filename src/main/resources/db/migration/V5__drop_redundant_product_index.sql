@@ -0,0 +1,3 @@
+-- idx_prices_date (product_id, init_date, end_date) ya cubre las búsquedas por producto.
+-- CONCURRENTLY no admite transacción: ver V5__drop_redundant_product_index.sql.conf
+DROP INDEX CONCURRENTLY IF EXISTS idx_prices_product;
@@ -0,0 +1,108 @@
+-- Paso 1 de 3 de la migración de prices a una tabla particionada por rango mensual de init_date, sin parar el
+-- servicio: se crea la tabla nueva, se mantiene sincronizada con un trigger sobre la actual mientras V7 copia el
+-- histórico por bloques y V8 intercambia ambas tablas en una transacción corta.
+
+CREATE SCHEMA IF NOT EXISTS price_archive;
+
+-- Mismas columnas y valores por defecto (id sigue tomando valores de prices_id_seq).
+-- La clave primaria de una tabla particionada debe incluir la clave de partición.
+CREATE TABLE prices_partitioned (
+    LIKE prices INCLUDING DEFAULTS INCLUDING CONSTRAINTS,
+    CONSTRAINT pk_prices_partitioned PRIMARY KEY (id, init_date),
+    CONSTRAINT fk_prices_partitioned_product FOREIGN KEY (product_id) REFERENCES products (id) ON DELETE CASCADE
+) PARTITION BY RANGE (init_date);
+
+CREATE INDEX idx_prices_partitioned_date ON prices_partitioned(product_id, init_date, end_date);
+
+-- Recoge los precios con init_date posterior a la última partición mensual creada
+CREATE TABLE prices_p_default PARTITION OF prices_partitioned DEFAULT;
+
+-- Crea las particiones mensuales que falten entre from_month y el mes actual + months_ahead. Si la partición
+-- por defecto ya tiene filas de ese mes, se mueven a la partición nueva antes de adjuntarla.
+CREATE FUNCTION ensure_price_partitions(parent regclass, from_month DATE, months_ahead INT) RETURNS INT AS $$
+DECLARE
+    month_start DATE := date_trunc('month', from_month)::date;
+    last_month DATE := (date_trunc('month', current_date) + make_interval(months => months_ahead))::date;
+    partition_name TEXT;
+    created INT := 0;
+BEGIN
+    -- Varias réplicas pueden ejecutar el mantenimiento a la vez
+    PERFORM pg_advisory_xact_lock(hashtext('ensure_price_partitions'));
+
+    WHILE month_start <= last_month LOOP
+        partition_name := 'prices_p' || to_char(month_start, 'YYYYMM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name, parent);
+            -- Con el CHECK previo, ATTACH no necesita recorrer la tabla para validar el rango
+            EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (init_date >= %L AND init_date < %L)',
+                           partition_name, partition_name || '_range', month_start, (month_start + INTERVAL '1 month')::date);
+            EXECUTE format('WITH moved AS (DELETE FROM %I WHERE init_date >= %L AND init_date < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved',
+                           'prices_p_default', month_start, (month_start + INTERVAL '1 month')::date, partition_name);
+            EXECUTE format('ALTER TABLE %s ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           parent, partition_name, month_start, (month_start + INTERVAL '1 month')::date);
+            EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+            created := created + 1;
+        END IF;
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Histórico anterior a los datos actuales (precios con fecha retroactiva) y particiones mensuales desde el
+-- primer mes con precios hasta tres meses vista
+DO $$
+DECLARE
+    first_month DATE := date_trunc('month', COALESCE((SELECT min(init_date) FROM prices), current_date))::date;
+BEGIN
+    EXECUTE format('CREATE TABLE prices_p_history PARTITION OF prices_partitioned FOR VALUES FROM (MINVALUE) TO (%L)',
+                   first_month);
+    PERFORM ensure_price_partitions('prices_partitioned', first_month, 3);
+END;
+$$;
+
+-- Sincronización de los cambios en prices mientras dura la copia. Se identifica la fila por id porque un
+-- UPDATE de init_date la cambia de partición.
+CREATE FUNCTION sync_prices_partitioned() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM prices_partitioned WHERE id = OLD.id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO prices_partitioned (id, product_id, value, init_date, end_date, created_at)
+        VALUES (NEW.id, NEW.product_id, NEW.value, NEW.init_date, NEW.end_date, NEW.created_at);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_sync_prices_partitioned
+    AFTER INSERT OR UPDATE OR DELETE ON prices
+    FOR EACH ROW EXECUTE FUNCTION sync_prices_partitioned();
+
+-- Copia por bloques de ids con un commit por bloque. Las filas del bloque se bloquean FOR SHARE para que un
+-- UPDATE concurrente espere a que el bloque esté copiado y el trigger lo aplique sobre la versión copiada;
+-- las filas que ya copió el trigger se saltan, así que puede relanzarse sin duplicar.
+CREATE PROCEDURE backfill_prices_partitioned(batch_size INT) AS $$
+DECLARE
+    last_id BIGINT := 0;
+    max_id BIGINT := (SELECT COALESCE(max(id), 0) FROM prices);
+BEGIN
+    WHILE last_id < max_id LOOP
+        WITH batch AS (
+            SELECT id, product_id, value, init_date, end_date, created_at
+            FROM prices
+            WHERE id > last_id AND id <= last_id + batch_size
+            FOR SHARE
+        )
+        INSERT INTO prices_partitioned (id, product_id, value, init_date, end_date, created_at)
+        SELECT b.id, b.product_id, b.value, b.init_date, b.end_date, b.created_at
+        FROM batch b
+        WHERE NOT EXISTS (SELECT 1 FROM prices_partitioned pp WHERE pp.id = b.id);
+
+        last_id := last_id + batch_size;
+        COMMIT;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
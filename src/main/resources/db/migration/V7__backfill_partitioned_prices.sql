@@ -0,0 +1,4 @@
+-- Paso 2 de 3: copia del histórico a prices_partitioned. El procedimiento hace COMMIT tras cada bloque, así que
+-- no puede ejecutarse dentro de una transacción (ver V7__backfill_partitioned_prices.sql.conf). Si se
+-- interrumpe puede relanzarse: las filas ya copiadas se saltan.
+CALL backfill_prices_partitioned(5000);
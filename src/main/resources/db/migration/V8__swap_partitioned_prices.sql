@@ -0,0 +1,30 @@
+-- Paso 3 de 3: intercambio de tablas en una transacción corta. Con el bloqueo exclusivo no hay escrituras en
+-- curso, así que basta con copiar lo que faltase (nada, si V7 terminó) antes de renombrar.
+SET LOCAL lock_timeout = '5s';
+LOCK TABLE prices IN ACCESS EXCLUSIVE MODE;
+
+INSERT INTO prices_partitioned (id, product_id, value, init_date, end_date, created_at)
+SELECT p.id, p.product_id, p.value, p.init_date, p.end_date, p.created_at
+FROM prices p
+WHERE NOT EXISTS (SELECT 1 FROM prices_partitioned pp WHERE pp.id = p.id);
+
+DROP TRIGGER trg_sync_prices_partitioned ON prices;
+DROP FUNCTION sync_prices_partitioned();
+DROP PROCEDURE backfill_prices_partitioned(INT);
+
+-- La secuencia pertenece a prices.id: se desliga antes de renombrar para que sobreviva a la tabla antigua
+ALTER SEQUENCE prices_id_seq OWNED BY NONE;
+
+ALTER TABLE prices RENAME TO prices_legacy;
+-- Sin la clave ajena, borrar un producto no recorre en cascada su histórico en la tabla antigua
+ALTER TABLE prices_legacy DROP CONSTRAINT fk_product;
+ALTER INDEX idx_prices_date RENAME TO idx_prices_legacy_date;
+
+ALTER TABLE prices_partitioned RENAME TO prices;
+ALTER TABLE prices RENAME CONSTRAINT pk_prices_partitioned TO pk_prices;
+ALTER TABLE prices RENAME CONSTRAINT fk_prices_partitioned_product TO fk_product;
+ALTER INDEX idx_prices_partitioned_date RENAME TO idx_prices_date;
+
+ALTER SEQUENCE prices_id_seq OWNED BY prices.id;
+
+-- prices_legacy se conserva como copia de seguridad hasta verificar el cambio; se borrará en una versión posterior
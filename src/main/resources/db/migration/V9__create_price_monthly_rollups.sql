@@ -0,0 +1,23 @@
+-- Agregados mensuales de precios por producto: una fila por producto y mes con los precios que entran en vigor
+-- ese mes. La media se obtiene como sum_value / changes, así que las filas se pueden combinar para cualquier
+-- ventana de meses. La mantiene PriceRollupService tras cada cambio de precio y se puede reconstruir por rangos
+CREATE TABLE price_monthly_rollups (
+    product_id BIGINT NOT NULL,
+    month DATE NOT NULL,
+    changes INT NOT NULL,
+    min_value NUMERIC(10,2) NOT NULL,
+    max_value NUMERIC(10,2) NOT NULL,
+    sum_value NUMERIC(18,2) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_price_monthly_rollups PRIMARY KEY (product_id, month),
+    CONSTRAINT fk_price_monthly_rollups_product FOREIGN KEY (product_id) REFERENCES products (id) ON DELETE CASCADE,
+    CONSTRAINT chk_price_monthly_rollups_month CHECK (EXTRACT(DAY FROM month) = 1)
+);
+
+-- Consultas del catálogo completo por rango de meses
+CREATE INDEX idx_price_monthly_rollups_month ON price_monthly_rollups(month, product_id);
+
+INSERT INTO price_monthly_rollups (product_id, month, changes, min_value, max_value, sum_value)
+SELECT product_id, date_trunc('month', init_date)::date, COUNT(*), MIN(value), MAX(value), SUM(value)
+FROM prices
+GROUP BY product_id, date_trunc('month', init_date);
@@ -0,0 +1,53 @@
+package mango.challenge.products.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HotProductTrackerTest {
+
+    @Test
+    void hotProducts_shouldReturnMostRequestedProductsInOrder() {
+        HotProductTracker tracker = new HotProductTracker(3, 4, 1024);
+        LongStream.rangeClosed(100, 500).forEach(tracker::record);
+        for (int i = 0; i < 50; i++) {
+            tracker.record(1);
+            tracker.record(2);
+            if (i % 2 == 0) {
+                tracker.record(3);
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            tracker.record(2);
+        }
+
+        assertThat(tracker.hotProducts())
+                .extracting(HotProductTracker.HotProduct::productId)
+                .containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    void decay_shouldHalveEstimates() {
+        HotProductTracker tracker = new HotProductTracker(10, 4, 1024);
+        for (int i = 0; i < 40; i++) {
+            tracker.record(7);
+        }
+
+        tracker.decay();
+
+        assertThat(tracker.hotProducts().getFirst().estimate()).isEqualTo(20);
+    }
+
+    @Test
+    void countMinSketch_shouldNeverUnderestimate() {
+        CountMinSketch sketch = new CountMinSketch(4, 256);
+        LongStream.range(0, 10_000).forEach(sketch::add);
+        for (int i = 0; i < 100; i++) {
+            sketch.add(42);
+        }
+
+        assertThat(sketch.estimate(42)).isGreaterThanOrEqualTo(101);
+    }
+}
@@ -0,0 +1,76 @@
+package mango.challenge.products.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.event.PriceChangedEvent;
+import mango.challenge.products.repository.PriceRepository;
+import mango.challenge.products.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class PriceTimelineCacheTest {
+
+    private PriceRepository priceRepository;
+    private PriceTimelineCache cache;
+
+    @BeforeEach
+    void setUp() {
+        priceRepository = mock(PriceRepository.class);
+        HotProductTracker hotProductTracker = mock(HotProductTracker.class);
+        when(hotProductTracker.hotProducts()).thenReturn(List.of(new HotProductTracker.HotProduct(1L, 100)));
+        when(priceRepository.findTimelines(ArgumentMatchers.<Collection<Long>>any())).thenReturn(List.of(price()));
+        cache = new PriceTimelineCache(priceRepository, hotProductTracker, ShardRouter.single(),
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), Duration.ofMinutes(1));
+    }
+
+    @Test
+    void onPriceChanged_shouldDropTimelineAndReloadItOnceOnRefresh() {
+        cache.refresh();
+        assertThat(cache.isPinned(1L)).isTrue();
+
+        for (int i = 0; i < 200; i++) {
+            cache.onPriceChanged(event());
+        }
+
+        assertThat(cache.isPinned(1L)).isFalse();
+        verify(priceRepository, times(1)).findTimelines(ArgumentMatchers.<Collection<Long>>any());
+
+        cache.refresh();
+
+        assertThat(cache.isPinned(1L)).isTrue();
+        verify(priceRepository, times(2)).findTimelines(ArgumentMatchers.<Collection<Long>>any());
+    }
+
+    // El cambio se confirma mientras el refresh lee el historial: esa lectura puede no incluirlo y no se fija
+    @Test
+    void refresh_shouldNotPinReadStartedBeforeChange() {
+        when(priceRepository.findTimelines(ArgumentMatchers.<Collection<Long>>any())).thenAnswer(invocation -> {
+            cache.onPriceChanged(event());
+            return List.of(price());
+        });
+
+        cache.refresh();
+
+        assertThat(cache.isPinned(1L)).isFalse();
+    }
+
+    private static PriceResponse price() {
+        return new PriceResponse(10L, 1L, new BigDecimal("19.99"), LocalDate.of(2025, 1, 1), null);
+    }
+
+    private static PriceChangedEvent event() {
+        return new PriceChangedEvent(PriceChangedEvent.Operation.UPDATE, 1L, 10L, null, null, LocalDateTime.now());
+    }
+}
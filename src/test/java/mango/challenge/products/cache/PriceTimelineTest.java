@@ -0,0 +1,41 @@
+package mango.challenge.products.cache;
+
+import mango.challenge.products.dto.PriceResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PriceTimelineTest {
+
+    // Enero, hueco en febrero y precio abierto desde marzo; se cargan desordenados
+    private final PriceTimeline timeline = PriceTimeline.of(List.of(
+            price(3L, "2025-03-01", null),
+            price(1L, "2025-01-01", "2025-01-31")));
+
+    @Test
+    void priceAt_shouldFindPriceCoveringDate_includingBounds() {
+        assertThat(timeline.priceAt(LocalDate.of(2025, 1, 1))).map(PriceResponse::getId).contains(1L);
+        assertThat(timeline.priceAt(LocalDate.of(2025, 1, 31))).map(PriceResponse::getId).contains(1L);
+        assertThat(timeline.priceAt(LocalDate.of(2030, 6, 1))).map(PriceResponse::getId).contains(3L);
+    }
+
+    @Test
+    void priceAt_shouldBeEmpty_beforeFirstPriceOrInGap() {
+        assertThat(timeline.priceAt(LocalDate.of(2024, 12, 31))).isEmpty();
+        assertThat(timeline.priceAt(LocalDate.of(2025, 2, 15))).isEmpty();
+    }
+
+    private static PriceResponse price(Long id, String initDate, String endDate) {
+        return PriceResponse.builder()
+                .id(id)
+                .productId(1L)
+                .value(BigDecimal.TEN)
+                .initDate(LocalDate.parse(initDate))
+                .endDate(endDate != null ? LocalDate.parse(endDate) : null)
+                .build();
+    }
+}
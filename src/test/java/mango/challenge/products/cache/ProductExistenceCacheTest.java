@@ -0,0 +1,91 @@
+package mango.challenge.products.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mango.challenge.products.event.ProductDeletedEvent;
+import mango.challenge.products.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ProductExistenceCacheTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ProductExistenceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        cache = new ProductExistenceCache(jdbcTemplate, ShardRouter.single(), new SimpleMeterRegistry(), 100);
+    }
+
+    @Test
+    void contains_shouldReflectAddsAndRemoves() {
+        cache.add(1L);
+        cache.add(64L);
+        cache.add(100_000L);
+
+        assertThat(cache.contains(1L)).isTrue();
+        assertThat(cache.contains(64L)).isTrue();
+        assertThat(cache.contains(100_000L)).isTrue();
+        assertThat(cache.contains(2L)).isFalse();
+        assertThat(cache.contains(10_000_000L)).isFalse();
+
+        cache.remove(64L);
+
+        assertThat(cache.contains(64L)).isFalse();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void add_shouldIgnoreIdsBeyondTrackedRange() {
+        cache.add(ProductExistenceCache.MAX_TRACKED_ID);
+
+        assertThat(cache.contains(ProductExistenceCache.MAX_TRACKED_ID)).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void ranges_shouldCoverProductIdsInChunks() {
+        when(jdbcTemplate.queryForMap(anyString())).thenReturn(Map.of("min_id", 1L, "max_id", 250L));
+
+        assertThat(cache.ranges()).containsExactly(
+                new ProductExistenceCache.IdRange(0, 1, 100),
+                new ProductExistenceCache.IdRange(0, 101, 200),
+                new ProductExistenceCache.IdRange(0, 201, 250));
+    }
+
+    @Test
+    void finish_shouldReplaceKnownIdsAndKeepRemovalsMadeDuringLoad() {
+        cache.add(5L);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(1L), eq(100L))).thenReturn(List.of(1L, 2L, 3L));
+
+        ProductExistenceCache.Load load = cache.startLoad();
+        cache.load(load, new ProductExistenceCache.IdRange(0, 1, 100));
+        cache.remove(2L);
+        cache.finish(load);
+
+        assertThat(cache.contains(1L)).isTrue();
+        assertThat(cache.contains(2L)).isFalse();
+        assertThat(cache.contains(3L)).isTrue();
+        assertThat(cache.contains(5L)).isFalse();
+    }
+
+    // Una comprobación concurrente puede volver a añadir el id entre el borrado lógico y su commit
+    @Test
+    void onProductDeleted_shouldRemoveIdReaddedBeforeCommit() {
+        cache.add(7L);
+        cache.remove(7L);
+        cache.add(7L);
+
+        cache.onProductDeleted(new ProductDeletedEvent(7L));
+
+        assertThat(cache.contains(7L)).isFalse();
+    }
+}
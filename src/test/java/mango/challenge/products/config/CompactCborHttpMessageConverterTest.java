@@ -0,0 +1,86 @@
+package mango.challenge.products.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import mango.challenge.products.dto.PriceRequest;
+import mango.challenge.products.dto.PriceResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactCborHttpMessageConverterTest {
+
+    private final ObjectMapper cborMapper = CompactCborHttpMessageConverter.createObjectMapper();
+
+    @Test
+    void shouldEncodePriceAsPositionalArrayWithEpochDaysAndCents() throws Exception {
+        PriceResponse price = PriceResponse.builder()
+                .id(7L)
+                .productId(1L)
+                .value(new BigDecimal("120.50"))
+                .initDate(LocalDate.of(2025, 7, 1))
+                .endDate(null)
+                .build();
+
+        JsonNode node = cborMapper.readTree(cborMapper.writeValueAsBytes(price));
+
+        assertThat(node.isArray()).isTrue();
+        assertThat(node.get(0).asLong()).isEqualTo(7L);
+        assertThat(node.get(1).asLong()).isEqualTo(1L);
+        assertThat(node.get(2).asLong()).isEqualTo(12050L);
+        assertThat(node.get(3).asLong()).isEqualTo(LocalDate.of(2025, 7, 1).toEpochDay());
+        assertThat(node.get(4).isNull()).isTrue();
+    }
+
+    @Test
+    void shouldReadPriceRequestWithEpochDaysAndCents() throws Exception {
+        byte[] body = cborMapper.writeValueAsBytes(Map.of(
+                "value", 9999,
+                "initDate", LocalDate.of(2025, 9, 1).toEpochDay(),
+                "endDate", LocalDate.of(2025, 9, 30).toEpochDay()));
+
+        PriceRequest request = cborMapper.readValue(body, PriceRequest.class);
+
+        assertThat(request.getValue()).isEqualByComparingTo(new BigDecimal("99.99"));
+        assertThat(request.getInitDate()).isEqualTo(LocalDate.of(2025, 9, 1));
+        assertThat(request.getEndDate()).isEqualTo(LocalDate.of(2025, 9, 30));
+    }
+
+    @Test
+    void shouldEncodePageWithoutSpringMetadataAndSmallerThanJson() throws Exception {
+        List<PriceResponse> content = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            content.add(PriceResponse.builder()
+                    .id(i)
+                    .productId(1L)
+                    .value(BigDecimal.valueOf(1000 + i, 2))
+                    .initDate(LocalDate.of(2025, 1, 1).plusDays(i))
+                    .endDate(LocalDate.of(2025, 1, 1).plusDays(i))
+                    .build());
+        }
+        Page<PriceResponse> page = new PageImpl<>(content, PageRequest.of(0, 100), 1000);
+        ObjectMapper jsonMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        byte[] cbor = cborMapper.writeValueAsBytes(page);
+        JsonNode node = cborMapper.readTree(cbor);
+
+        assertThat(node.get("content")).hasSize(100);
+        assertThat(node.get("totalElements").asLong()).isEqualTo(1000L);
+        assertThat(node.has("pageable")).isFalse();
+        assertThat(cbor.length).isLessThan(jsonMapper.writeValueAsBytes(page).length / 3);
+    }
+}
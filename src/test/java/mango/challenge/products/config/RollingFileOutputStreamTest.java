@@ -0,0 +1,43 @@
+package mango.challenge.products.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RollingFileOutputStreamTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void flush_shouldRotateOnlyWhenMaxSizeIsReached() throws IOException {
+        Path file = directory.resolve("traces.ndjson");
+        try (RollingFileOutputStream out = new RollingFileOutputStream(file, 10)) {
+            out.write("corto\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            assertThat(directory.resolve("traces.ndjson.1")).doesNotExist();
+
+            out.write("supera el límite\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            out.write("nuevo\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        assertThat(Files.readString(directory.resolve("traces.ndjson.1"))).isEqualTo("corto\nsupera el límite\n");
+        assertThat(Files.readString(file)).isEqualTo("nuevo\n");
+    }
+
+    @Test
+    void close_shouldBeIdempotent() throws IOException {
+        RollingFileOutputStream out = new RollingFileOutputStream(directory.resolve("traces.ndjson"), 10);
+
+        out.close();
+        out.close();
+    }
+}
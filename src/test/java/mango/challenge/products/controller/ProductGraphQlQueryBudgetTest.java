@@ -0,0 +1,90 @@
+package mango.challenge.products.controller;
+
+import mango.challenge.products.support.QueryBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Presupuestos de consultas sobre los datos de ejemplo de V2__insert_sample_data.sql (productos 1, 2 y 3 con precios)
+@SpringBootTest
+@AutoConfigureGraphQlTester
+@Transactional
+@Import(QueryBudget.class)
+public class ProductGraphQlQueryBudgetTest {
+
+    private static final String PRODUCTS_WITH_PRICES = """
+            query($ids: [ID!]!) {
+              products(ids: $ids) {
+                name
+                currentPrice(date: "2025-05-01") { value }
+                prices(last: 2) { value initDate }
+              }
+            }
+            """;
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @Autowired
+    private QueryBudget queryBudget;
+
+    @BeforeEach
+    void setUp() {
+        queryBudget.reset();
+    }
+
+    // Productos, historiales y precios vigentes: una sentencia por campo sea cual sea el número de productos
+    @Test
+    void products_withPrices_shouldRunConstantNumberOfStatements() {
+        graphQlTester.document(PRODUCTS_WITH_PRICES).variable("ids", List.of(1)).execute()
+                .path("products[0].prices").entityList(Object.class).hasSize(2);
+        queryBudget.assertSelects(3);
+        queryBudget.assertTotal(3);
+
+        queryBudget.reset();
+        graphQlTester.document(PRODUCTS_WITH_PRICES).variable("ids", List.of(1, 2, 3)).execute()
+                .path("products").entityList(Object.class).hasSize(3);
+        queryBudget.assertSelects(3);
+        queryBudget.assertTotal(3);
+    }
+
+    @Test
+    void prices_shouldReturnOnlyMostRecent() {
+        graphQlTester.document(PRODUCTS_WITH_PRICES).variable("ids", List.of(1)).execute()
+                .path("products[0].prices[*].initDate").entityList(String.class)
+                .containsExactly("2025-07-01", "2025-04-01")
+                .path("products[0].currentPrice.value").entity(Double.class).isEqualTo(110.0);
+    }
+
+    @Test
+    void currentPrice_withInvalidDate_shouldReturnBadRequest() {
+        graphQlTester.document("""
+                        { product(id: 1) { currentPrice(date: "2025-13-01") { value } } }
+                        """)
+                .execute()
+                .errors()
+                .satisfy(errors -> assertThat(errors).singleElement()
+                        .satisfies(error -> assertThat(error.getErrorType()).isEqualTo(ErrorType.BAD_REQUEST)));
+    }
+
+    @Test
+    void prices_withLastAboveLimit_shouldReturnBadRequest() {
+        graphQlTester.document("""
+                        { product(id: 1) { prices(last: 100000) { value } } }
+                        """)
+                .execute()
+                .errors()
+                .satisfy(errors -> assertThat(errors).singleElement()
+                        .satisfies(error -> assertThat(error.getErrorType()).isEqualTo(ErrorType.BAD_REQUEST)));
+    }
+}
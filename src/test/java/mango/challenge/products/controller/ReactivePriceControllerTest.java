@@ -0,0 +1,101 @@
+package mango.challenge.products.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.exception.GlobalExceptionHandler;
+import mango.challenge.products.exception.ResourceNotFoundException;
+import mango.challenge.products.service.ReactivePriceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// El controlador devuelve Mono/Flux sobre Spring MVC: la respuesta se completa en un despacho asíncrono
+public class ReactivePriceControllerTest {
+
+    private ReactivePriceService reactivePriceService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        reactivePriceService = mock(ReactivePriceService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ReactivePriceController(reactivePriceService))
+                .setControllerAdvice(new GlobalExceptionHandler(new SimpleMeterRegistry()))
+                .build();
+    }
+
+    @Test
+    void getPriceAt_shouldReturnPrice() throws Exception {
+        when(reactivePriceService.getPriceAt(1L, LocalDate.of(2024, 6, 15)))
+                .thenReturn(Mono.just(price(10L, "2024-01-01")));
+
+        mockMvc.perform(asyncDispatch(start("/v1/reactive/products/1/prices?date=2024-06-15")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(10))
+                .andExpect(jsonPath("$.value").value(19.99))
+                .andExpect(jsonPath("$.initDate").value("2024-01-01"));
+    }
+
+    @Test
+    void getPriceAt_shouldReturn404_whenProductDoesNotExist() throws Exception {
+        when(reactivePriceService.getPriceAt(any(), any()))
+                .thenReturn(Mono.error(new ResourceNotFoundException("Producto no encontrado")));
+
+        mockMvc.perform(asyncDispatch(start("/v1/reactive/products/99/prices?date=2024-06-15")))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Producto no encontrado"));
+    }
+
+    @Test
+    void getPriceAt_shouldReturn400_whenNoPriceIsActive() throws Exception {
+        when(reactivePriceService.getPriceAt(any(), any()))
+                .thenReturn(Mono.error(new IllegalArgumentException("No hay precio vigente para esta fecha")));
+
+        mockMvc.perform(asyncDispatch(start("/v1/reactive/products/1/prices?date=2000-01-01")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("No hay precio vigente para esta fecha"));
+    }
+
+    @Test
+    void getPriceHistory_shouldStreamNdjson() throws Exception {
+        when(reactivePriceService.getPriceHistory(1L, null, null))
+                .thenReturn(Flux.just(price(10L, "2024-01-01"), price(11L, "2024-07-01")));
+
+        MvcResult result = mockMvc.perform(get("/v1/reactive/products/1/prices").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Con NDJSON cada elemento se escribe en la respuesta según llega; el resultado asíncrono marca el final
+        result.getAsyncResult();
+
+        assertThat(result.getResponse().getContentType()).startsWith(MediaType.APPLICATION_NDJSON_VALUE);
+        assertThat(result.getResponse().getContentAsString().lines())
+                .hasSize(2)
+                .satisfiesExactly(
+                        line -> assertThat(line).contains("\"id\":10"),
+                        line -> assertThat(line).contains("\"id\":11"));
+    }
+
+    private MvcResult start(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static PriceResponse price(Long id, String initDate) {
+        return new PriceResponse(id, 1L, new BigDecimal("19.99"), LocalDate.parse(initDate), null);
+    }
+}
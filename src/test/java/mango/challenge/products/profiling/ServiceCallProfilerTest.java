@@ -0,0 +1,117 @@
+package mango.challenge.products.profiling;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import mango.challenge.products.cache.ProductExistenceCache;
+import mango.challenge.products.exception.ResourceNotFoundException;
+import mango.challenge.products.model.Product;
+import mango.challenge.products.repository.ProductRepository;
+import mango.challenge.products.sharding.ScatterGather;
+import mango.challenge.products.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ServiceCallProfilerTest {
+    private ProductRepository productRepository;
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ProductService(productRepository,
+                ScatterGather.singleShard(mock(PlatformTransactionManager.class)), mock(ProductExistenceCache.class),
+                mock(ApplicationEventPublisher.class)));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ServiceCallProfiler());
+        productService = factory.getProxy();
+    }
+
+    @Test
+    void getProductsByIds_shouldEmitEventWithFiltersAndRows() throws Exception {
+        when(productRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(product(1L), product(2L)));
+
+        List<RecordedEvent> events = record(() -> productService.getProductsByIds(List.of(1L, 2L)));
+
+        assertThat(events).hasSize(1);
+        RecordedEvent event = events.getFirst();
+        assertThat(event.getString("service")).isEqualTo("ProductService");
+        assertThat(event.getString("method")).isEqualTo("getProductsByIds");
+        assertThat(event.getLong("productId")).isZero();
+        assertThat(event.getString("filters")).isEqualTo("ids=[1, 2]");
+        assertThat(event.getLong("rows")).isEqualTo(2);
+        assertThat(event.getBoolean("failed")).isFalse();
+    }
+
+    @Test
+    void getProductById_shouldEmitEventWithProductId() throws Exception {
+        when(productRepository.findById(7L)).thenReturn(Optional.of(product(7L)));
+
+        List<RecordedEvent> events = record(() -> productService.getProductById(7L));
+
+        assertThat(events).hasSize(1);
+        assertThat(events.getFirst().getLong("productId")).isEqualTo(7L);
+        assertThat(events.getFirst().getString("filters")).isEmpty();
+        assertThat(events.getFirst().getLong("rows")).isEqualTo(1);
+    }
+
+    @Test
+    void getProductById_shouldMarkEventAsFailed_whenServiceThrows() throws Exception {
+        when(productRepository.findById(99L)).thenReturn(Optional.empty());
+
+        List<RecordedEvent> events = record(() -> assertThatThrownBy(() -> productService.getProductById(99L))
+                .isInstanceOf(ResourceNotFoundException.class));
+
+        assertThat(events).hasSize(1);
+        assertThat(events.getFirst().getBoolean("failed")).isTrue();
+        assertThat(events.getFirst().getString("error")).isEqualTo("ResourceNotFoundException");
+        assertThat(events.getFirst().getLong("rows")).isZero();
+    }
+
+    @Test
+    void rows_shouldSumGroupedListsAndCountSingleResults() {
+        assertThat(ServiceCallProfiler.rows(null)).isZero();
+        assertThat(ServiceCallProfiler.rows(Map.of(1L, List.of("a", "b"), 2L, List.of("c")))).isEqualTo(3);
+        assertThat(ServiceCallProfiler.rows(Map.of("id", 1L, "name", "Zapatillas"))).isEqualTo(1);
+        assertThat(ServiceCallProfiler.rows(product(1L))).isEqualTo(1);
+    }
+
+    private static List<RecordedEvent> record(Runnable action) throws Exception {
+        Path file = Files.createTempFile("service-calls", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ServiceCallEvent.class);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(ServiceCallEvent.NAME))
+                    .toList();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Product product(Long id) {
+        return Product.builder()
+                .id(id)
+                .name("Zapatillas deportivas")
+                .description("Modelo edición limitada")
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package mango.challenge.products.service;
+
+import mango.challenge.products.service.PriceAnalyticsService.DateRange;
+import mango.challenge.products.service.PriceAnalyticsService.Window;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PriceAnalyticsServiceTest {
+
+    @Test
+    void window_shouldReadFullMonthsFromRollupsAndEdgesFromPrices() {
+        Window window = Window.of(LocalDate.parse("2025-01-15"), LocalDate.parse("2025-04-10"));
+
+        assertThat(window.rollups()).isTrue();
+        assertThat(window.rollupFrom()).isEqualTo("2025-02-01");
+        assertThat(window.rollupTo()).isEqualTo("2025-04-01");
+        assertThat(window.edges()).containsExactly(
+                new DateRange(LocalDate.parse("2025-01-15"), LocalDate.parse("2025-02-01")),
+                new DateRange(LocalDate.parse("2025-04-01"), LocalDate.parse("2025-04-11")));
+    }
+
+    @Test
+    void window_shouldSkipEdgesWhenAlignedToMonths() {
+        Window window = Window.of(LocalDate.parse("2025-01-01"), LocalDate.parse("2025-03-31"));
+
+        assertThat(window.rollupFrom()).isEqualTo("2025-01-01");
+        assertThat(window.rollupTo()).isEqualTo("2025-04-01");
+        assertThat(window.edges()).isEmpty();
+    }
+
+    @Test
+    void window_shouldUseOnlyPricesWhenNoFullMonthIsCovered() {
+        Window window = Window.of(LocalDate.parse("2025-01-15"), LocalDate.parse("2025-02-20"));
+
+        assertThat(window.rollups()).isFalse();
+        assertThat(window.edges()).containsExactly(
+                new DateRange(LocalDate.parse("2025-01-15"), LocalDate.parse("2025-02-21")));
+    }
+
+    @Test
+    void window_shouldLeaveOpenBoundsUnbounded() {
+        Window all = Window.of(null, null);
+        assertThat(all.rollups()).isTrue();
+        assertThat(all.rollupFrom()).isNull();
+        assertThat(all.rollupTo()).isNull();
+        assertThat(all.edges()).isEmpty();
+
+        Window untilMidMonth = Window.of(null, LocalDate.parse("2025-06-14"));
+        assertThat(untilMidMonth.rollupFrom()).isNull();
+        assertThat(untilMidMonth.rollupTo()).isEqualTo("2025-06-01");
+        assertThat(untilMidMonth.edges()).containsExactly(
+                new DateRange(LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-15")));
+    }
+
+    @Test
+    void window_shouldRejectInvertedDates() {
+        assertThatThrownBy(() -> Window.of(LocalDate.parse("2025-02-01"), LocalDate.parse("2025-01-01")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
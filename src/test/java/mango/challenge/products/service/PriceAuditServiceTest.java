@@ -0,0 +1,130 @@
+package mango.challenge.products.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mango.challenge.products.event.PriceChangedEvent;
+import mango.challenge.products.repository.PriceAuditRepository;
+import mango.challenge.products.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PriceAuditServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private Path spoolFile;
+    private PriceAuditService priceAuditService;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        spoolFile = tempDir.resolve("spool.ndjson");
+        priceAuditService = auditService(ShardRouter.single());
+    }
+
+    private PriceAuditService auditService(ShardRouter shardRouter) {
+        return new PriceAuditService(jdbcTemplate, new TransactionTemplate(transactionManager),
+                mock(PriceAuditRepository.class), objectMapper, shardRouter, new SimpleMeterRegistry(),
+                10, 5, Duration.ofMillis(10), Duration.ofMillis(50), spoolFile);
+    }
+
+    @Test
+    void write_shouldInsertWholeBatchInOneCall() {
+        priceAuditService.write(List.of(event(1L), event(2L), event(3L)));
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), argThat((List<PriceChangedEvent> batch) -> batch.size() == 3),
+                eq(3), ArgumentMatchers.<ParameterizedPreparedStatementSetter<PriceChangedEvent>>any());
+        assertThat(spoolFile).doesNotExist();
+    }
+
+    @Test
+    void write_shouldInsertOneBatchPerShard_whenSharded() {
+        priceAuditService = auditService(new ShardRouter(2, true));
+
+        priceAuditService.write(List.of(event(1L, 1L), event(2L, 2L), event(3L, 3L)));
+
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<PriceChangedEvent> batch) -> batch.size() == 1),
+                eq(1), ArgumentMatchers.<ParameterizedPreparedStatementSetter<PriceChangedEvent>>any());
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<PriceChangedEvent> batch) -> batch.size() == 2),
+                eq(2), ArgumentMatchers.<ParameterizedPreparedStatementSetter<PriceChangedEvent>>any());
+    }
+
+    @Test
+    void write_shouldSpoolBatch_whenDatabaseFails() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(),
+                ArgumentMatchers.<ParameterizedPreparedStatementSetter<PriceChangedEvent>>any()))
+                .thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+        priceAuditService.write(List.of(event(1L), event(2L)));
+
+        List<String> lines = Files.readAllLines(spoolFile);
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines.getFirst(), PriceChangedEvent.class).priceId()).isEqualTo(1L);
+        // Las filas que llegasen a insertarse se deshacen: el spool no las duplica al reprocesarse
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void replaySpool_shouldInsertSpooledEventsAndDeleteSpool() throws Exception {
+        Files.write(spoolFile, List.of(objectMapper.writeValueAsString(event(1L)), objectMapper.writeValueAsString(event(2L))));
+
+        priceAuditService.replaySpool();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<PriceChangedEvent> batch) -> batch.size() == 2),
+                eq(2), ArgumentMatchers.<ParameterizedPreparedStatementSetter<PriceChangedEvent>>any());
+        verify(transactionManager).commit(any());
+        assertThat(spoolFile).doesNotExist();
+    }
+
+    @Test
+    void onPriceChanged_shouldSpool_whenBufferStaysFull() throws Exception {
+        for (long i = 0; i < 10; i++) {
+            priceAuditService.onPriceChanged(event(i));
+        }
+
+        priceAuditService.onPriceChanged(event(99L));
+
+        assertThat(Files.readAllLines(spoolFile)).hasSize(1);
+    }
+
+    private static PriceChangedEvent event(Long priceId) {
+        return event(1L, priceId);
+    }
+
+    private static PriceChangedEvent event(Long productId, Long priceId) {
+        return new PriceChangedEvent(PriceChangedEvent.Operation.CREATE, productId, priceId, null,
+                new PriceChangedEvent.Snapshot(BigDecimal.TEN, LocalDate.of(2025, 1, 1), null),
+                LocalDateTime.of(2025, 1, 1, 10, 0));
+    }
+}
@@ -0,0 +1,76 @@
+package mango.challenge.products.service;
+
+import mango.challenge.products.service.PriceCompactionService.Merge;
+import mango.challenge.products.service.PriceCompactionService.PriceRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Detección de rachas (LAG + SUM acumulada de RUNS_SQL) contra PostgreSQL, sobre un producto creado en cada test
+@SpringBootTest
+@Transactional
+public class PriceCompactionServiceDatabaseTest {
+
+    @Autowired
+    private PriceCompactionService compactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long productId;
+
+    @BeforeEach
+    void setUp() {
+        productId = jdbcTemplate.queryForObject(
+                "INSERT INTO products (name, description) VALUES ('Compactación', 'Test') RETURNING id", Long.class);
+        // 10 en enero y febrero contiguos, 12 en marzo, 12 en abril tras un hueco de un día y 12 en mayo abierto
+        insertPrice("10", "2025-01-01", "2025-01-31");
+        insertPrice("10", "2025-02-01", "2025-02-28");
+        insertPrice("12", "2025-03-01", "2025-03-30");
+        insertPrice("12", "2025-04-01", "2025-04-30");
+        insertPrice("12", "2025-05-01", null);
+    }
+
+    @Test
+    void findMerges_shouldSplitRunsOnValueChangesAndGaps() {
+        List<Merge> merges = compactionService.findMerges(productId, productId);
+
+        assertThat(merges).hasSize(2);
+        assertThat(merges.get(0).kept().initDate()).isEqualTo(LocalDate.of(2025, 1, 1));
+        assertThat(merges.get(0).removed()).extracting(PriceRow::initDate).containsExactly(LocalDate.of(2025, 2, 1));
+        assertThat(merges.get(0).mergedEndDate()).isEqualTo(LocalDate.of(2025, 2, 28));
+        assertThat(merges.get(1).kept().initDate()).isEqualTo(LocalDate.of(2025, 4, 1));
+        assertThat(merges.get(1).removed()).extracting(PriceRow::initDate).containsExactly(LocalDate.of(2025, 5, 1));
+        assertThat(merges.get(1).mergedEndDate()).isNull();
+    }
+
+    @Test
+    void compact_shouldLeaveOneRowPerRunCoveringSameDays() {
+        compactionService.compact(false);
+
+        List<Map<String, Object>> prices = jdbcTemplate.queryForList(
+                "SELECT init_date, end_date FROM prices WHERE product_id = ? ORDER BY init_date", productId);
+        assertThat(prices).extracting(row -> row.get("init_date"), row -> row.get("end_date")).containsExactly(
+                tuple(Date.valueOf("2025-01-01"), Date.valueOf("2025-02-28")),
+                tuple(Date.valueOf("2025-03-01"), Date.valueOf("2025-03-30")),
+                tuple(Date.valueOf("2025-04-01"), null));
+    }
+
+    private void insertPrice(String value, String initDate, String endDate) {
+        jdbcTemplate.update("INSERT INTO prices (product_id, value, init_date, end_date) VALUES (?, ?, ?, ?)",
+                productId, new BigDecimal(value), Date.valueOf(initDate),
+                endDate != null ? Date.valueOf(endDate) : null);
+    }
+}
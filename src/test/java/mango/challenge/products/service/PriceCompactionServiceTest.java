@@ -0,0 +1,95 @@
+package mango.challenge.products.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mango.challenge.products.service.PriceCompactionService.Merge;
+import mango.challenge.products.service.PriceCompactionService.PriceRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PriceCompactionServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private PriceCompactionService compactionService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        compactionService = new PriceCompactionService(jdbcTemplate, transactionTemplate,
+                mock(ApplicationEventPublisher.class), meterRegistry, true, false, 100, Duration.ZERO);
+    }
+
+    @Test
+    void groupRuns_shouldKeepFirstRowAndExtendItToLastEndDate() {
+        List<PriceRow> rows = List.of(
+                row(1L, 1L, "10", "2025-01-01", "2025-01-31", 1),
+                row(2L, 1L, "10", "2025-02-01", "2025-02-28", 1),
+                row(3L, 1L, "10", "2025-03-01", null, 1),
+                row(7L, 2L, "20", "2025-01-01", "2025-01-15", 3),
+                row(8L, 2L, "20", "2025-01-16", "2025-01-31", 3));
+
+        List<Merge> merges = PriceCompactionService.groupRuns(rows);
+
+        assertThat(merges).hasSize(2);
+        assertThat(merges.get(0).kept().id()).isEqualTo(1L);
+        assertThat(merges.get(0).removed()).extracting(PriceRow::id).containsExactly(2L, 3L);
+        assertThat(merges.get(0).mergedEndDate()).isNull();
+        assertThat(merges.get(1).kept().id()).isEqualTo(7L);
+        assertThat(merges.get(1).mergedEndDate()).isEqualTo(LocalDate.of(2025, 1, 31));
+    }
+
+    @Test
+    void groupRuns_shouldSeparateRunsOfSameProduct() {
+        List<PriceRow> rows = List.of(
+                row(1L, 1L, "10", "2025-01-01", "2025-01-31", 1),
+                row(2L, 1L, "10", "2025-02-01", "2025-02-28", 1),
+                row(4L, 1L, "10", "2025-04-01", "2025-04-30", 2),
+                row(5L, 1L, "10", "2025-05-01", "2025-05-31", 2));
+
+        assertThat(PriceCompactionService.groupRuns(rows))
+                .extracting(merge -> merge.kept().id())
+                .containsExactly(1L, 4L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void compact_shouldOnlyCount_whenDryRun() {
+        when(jdbcTemplate.queryForList(contains("FROM products"), eq(Long.class), eq(0L), eq(100)))
+                .thenReturn(List.of(1L, 2L));
+        when(jdbcTemplate.queryForList(contains("FROM products"), eq(Long.class), eq(2L), eq(100)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(1L), eq(2L))).thenReturn(List.of(
+                row(1L, 1L, "10", "2025-01-01", "2025-01-31", 1),
+                row(2L, 1L, "10", "2025-02-01", null, 1)));
+
+        PriceCompactionService.CompactionResult result = compactionService.compact(true);
+
+        assertThat(result.mergedRuns()).isEqualTo(1);
+        assertThat(result.eliminatedRows()).isEqualTo(1);
+        verifyNoInteractions(transactionTemplate);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertThat(meterRegistry.get("price.compaction.rows.eliminated").tag("dry_run", "true").counter().count())
+                .isEqualTo(1);
+    }
+
+    private static PriceRow row(Long id, Long productId, String value, String initDate, String endDate, long runId) {
+        return new PriceRow(id, productId, new BigDecimal(value), LocalDate.parse(initDate),
+                endDate != null ? LocalDate.parse(endDate) : null, runId);
+    }
+}
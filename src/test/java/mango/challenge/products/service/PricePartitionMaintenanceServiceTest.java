@@ -0,0 +1,57 @@
+package mango.challenge.products.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PricePartitionMaintenanceServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PricePartitionMaintenanceService maintenanceService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        maintenanceService = new PricePartitionMaintenanceService(jdbcTemplate, transactionTemplate,
+                new SimpleMeterRegistry(), 3, 12);
+    }
+
+    @Test
+    void expiredPartitions_shouldOnlyReturnMonthlyPartitionsBeforeCutoff() {
+        List<String> partitions = List.of("prices_p_default", "prices_p_history",
+                "prices_p202401", "prices_p202402", "prices_p202403");
+
+        assertThat(PricePartitionMaintenanceService.expiredPartitions(partitions, LocalDate.of(2024, 3, 1)))
+                .containsExactly("prices_p202401", "prices_p202402");
+    }
+
+    @Test
+    void archiveExpiredPartitions_shouldDetachOnlyPartitionsWithoutLivePrices() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("prices_p202401", "prices_p202402", "prices_p202506"));
+        when(jdbcTemplate.queryForObject(contains("prices_p202401"), eq(Boolean.class), any())).thenReturn(false);
+        when(jdbcTemplate.queryForObject(contains("prices_p202402"), eq(Boolean.class), any())).thenReturn(true);
+
+        maintenanceService.archiveExpiredPartitions(LocalDate.of(2025, 6, 15));
+
+        verify(jdbcTemplate).execute("ALTER TABLE prices DETACH PARTITION prices_p202401");
+        verify(jdbcTemplate).execute("ALTER TABLE prices_p202401 SET SCHEMA price_archive");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE prices DETACH PARTITION prices_p202402");
+        verify(jdbcTemplate, never()).execute(contains("prices_p202506"));
+    }
+}
@@ -0,0 +1,56 @@
+package mango.challenge.products.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Reconstrucción de un rango contra PostgreSQL: los meses de particiones archivadas no se recalculan desde prices
+@SpringBootTest
+@Transactional
+public class PriceRollupServiceDatabaseTest {
+
+    @Autowired
+    private PriceRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long productId;
+
+    @BeforeEach
+    void setUp() {
+        productId = jdbcTemplate.queryForObject(
+                "INSERT INTO products (name, description) VALUES ('Agregados', 'Test') RETURNING id", Long.class);
+        jdbcTemplate.update("INSERT INTO prices (product_id, value, init_date, end_date) VALUES (?, ?, ?, NULL)",
+                productId, new BigDecimal("15"), Date.valueOf("2025-01-01"));
+        // Enero de 2019 tiene su partición archivada; febrero de 2019 es un agregado sin precios detrás
+        jdbcTemplate.execute("CREATE TABLE price_archive.prices_p201901 (LIKE prices)");
+        insertRollup("2019-01-01");
+        insertRollup("2019-02-01");
+    }
+
+    @Test
+    void rebuildRange_shouldKeepRollupsOfArchivedMonths() {
+        rollupService.rebuildRange(productId, productId);
+
+        List<Date> months = jdbcTemplate.queryForList(
+                "SELECT month FROM price_monthly_rollups WHERE product_id = ? ORDER BY month", Date.class, productId);
+        assertThat(months).containsExactly(Date.valueOf("2019-01-01"), Date.valueOf("2025-01-01"));
+    }
+
+    private void insertRollup(String month) {
+        jdbcTemplate.update("""
+                INSERT INTO price_monthly_rollups (product_id, month, changes, min_value, max_value, sum_value)
+                VALUES (?, ?, 1, 10, 10, 10)
+                """, productId, Date.valueOf(month));
+    }
+}
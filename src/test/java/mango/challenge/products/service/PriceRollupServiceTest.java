@@ -0,0 +1,112 @@
+package mango.challenge.products.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mango.challenge.products.event.PriceChangedEvent;
+import mango.challenge.products.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PriceRollupServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private PriceRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        rollupService = new PriceRollupService(jdbcTemplate, ShardRouter.single(),
+                mock(PlatformTransactionManager.class), meterRegistry, 100, 2, 500);
+    }
+
+    @Test
+    void affectedMonths_shouldIncludeOldAndNewInitDateMonths() {
+        PriceChangedEvent event = event(snapshot("2025-01-20"), snapshot("2025-03-05"));
+
+        assertThat(PriceRollupService.affectedMonths(event))
+                .containsExactly(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 1));
+    }
+
+    @Test
+    void affectedMonths_shouldCollapseChangesWithinSameMonth() {
+        assertThat(PriceRollupService.affectedMonths(event(snapshot("2025-02-01"), snapshot("2025-02-28"))))
+                .containsExactly(LocalDate.of(2025, 2, 1));
+        assertThat(PriceRollupService.affectedMonths(event(null, snapshot("2025-02-10"))))
+                .containsExactly(LocalDate.of(2025, 2, 1));
+    }
+
+    @Test
+    void onPriceChanged_shouldOnlyQueueAffectedMonths() {
+        rollupService.onPriceChanged(event(snapshot("2025-01-20"), snapshot("2025-03-05")));
+        rollupService.onPriceChanged(event(null, snapshot("2025-01-02")));
+
+        assertThat(rollupService.pendingCount()).isEqualTo(2);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_shouldRecomputeQueuedMonthsOnceInBatch() {
+        rollupService.onPriceChanged(event(snapshot("2025-01-20"), null));
+        rollupService.onPriceChanged(event(null, snapshot("2025-01-25")));
+
+        rollupService.flush();
+
+        ArgumentCaptor<List<Object[]>> upserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+        verify(jdbcTemplate).batchUpdate(contains("ON CONFLICT (product_id, month)"), upserts.capture());
+        verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM price_monthly_rollups"), anyList());
+        assertThat(upserts.getValue()).containsExactly(new Object[]{
+                Date.valueOf("2025-01-01"), 1L, Date.valueOf("2025-01-01"), Date.valueOf("2025-02-01")});
+        assertThat(rollupService.pendingCount()).isZero();
+        assertThat(meterRegistry.get("price.rollups.refreshes").tag("result", "success").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_shouldCountFailureAndRequeueMonths() {
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        rollupService.onPriceChanged(event(null, snapshot("2025-01-20")));
+
+        rollupService.flush();
+
+        assertThat(meterRegistry.get("price.rollups.refreshes").tag("result", "failure").counter().count()).isEqualTo(1);
+        assertThat(rollupService.pendingCount()).isEqualTo(1);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void ranges_shouldCoverAllIdsWithoutOverlap() {
+        assertThat(PriceRollupService.ranges(1, 250, 100))
+                .containsExactly(new long[]{1, 100}, new long[]{101, 200}, new long[]{201, 250});
+        assertThat(PriceRollupService.ranges(5, 5, 100)).containsExactly(new long[]{5, 5});
+    }
+
+    private static PriceChangedEvent event(PriceChangedEvent.Snapshot before, PriceChangedEvent.Snapshot after) {
+        PriceChangedEvent.Operation operation = before == null ? PriceChangedEvent.Operation.CREATE
+                : after == null ? PriceChangedEvent.Operation.DELETE : PriceChangedEvent.Operation.UPDATE;
+        return new PriceChangedEvent(operation, 1L, 10L, before, after, LocalDateTime.now());
+    }
+
+    private static PriceChangedEvent.Snapshot snapshot(String initDate) {
+        return new PriceChangedEvent.Snapshot(new BigDecimal("19.99"), LocalDate.parse(initDate), null);
+    }
+}
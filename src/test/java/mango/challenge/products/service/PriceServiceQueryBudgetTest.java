@@ -0,0 +1,88 @@
+package mango.challenge.products.service;
+
+import jakarta.persistence.EntityManager;
+import mango.challenge.products.dto.PriceRequest;
+import mango.challenge.products.support.QueryBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Presupuestos de consultas sobre los datos de ejemplo de V2__insert_sample_data.sql (producto 1 con precios 1, 2 y 3)
+@SpringBootTest
+@Transactional
+@Import(QueryBudget.class)
+public class PriceServiceQueryBudgetTest {
+
+    @Autowired
+    private PriceService priceService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private QueryBudget queryBudget;
+
+    @BeforeEach
+    void setUp() {
+        queryBudget.reset();
+    }
+
+    // La existencia del producto 1 la resuelve ProductExistenceCache, precargada al arrancar
+    @Test
+    void getPrices_shouldQueryOnlyPricePage() {
+        priceService.getPrices(1L, null, null, null, null, null, PageRequest.of(0, 20));
+
+        // Primera página incompleta: Spring Data no lanza la consulta COUNT
+        queryBudget.assertSelects(1);
+        queryBudget.assertTotal(1);
+    }
+
+    @Test
+    void getPrices_withDate_shouldQueryOnlyPricePage() {
+        priceService.getPrices(1L, LocalDate.of(2025, 5, 1), null, null, null, null, PageRequest.of(0, 20));
+
+        queryBudget.assertSelects(1);
+        queryBudget.assertTotal(1);
+    }
+
+    @Test
+    void addPrice_shouldCheckOverlapAndInsertOnce() {
+        priceService.addPrice(1L, PriceRequest.builder()
+                .value(BigDecimal.valueOf(130))
+                .initDate(LocalDate.of(2030, 1, 1))
+                .endDate(LocalDate.of(2030, 1, 31))
+                .build());
+
+        queryBudget.assertSelects(2);
+        queryBudget.assertInserts(1);
+        queryBudget.assertTotal(3);
+    }
+
+    @Test
+    void updatePrice_shouldLoadPriceCollectionOnce() {
+        priceService.updatePrice(1L, 1L, PriceRequest.builder().value(BigDecimal.valueOf(105)).build());
+        entityManager.flush();
+
+        // Producto, precio y la colección perezosa product.getPrices() que recorre la comprobación de solapamiento
+        queryBudget.assertSelects(3);
+        queryBudget.assertUpdates(1);
+        queryBudget.assertTotal(4);
+    }
+
+    @Test
+    void deletePrice_shouldLoadBeforeImageAndIssueSingleDelete() {
+        priceService.deletePrice(1L, 2L);
+
+        // La imagen previa para la auditoría y el borrado condicionado al producto
+        queryBudget.assertSelects(1);
+        queryBudget.assertDeletes(1);
+        queryBudget.assertTotal(2);
+    }
+}
@@ -1,39 +1,59 @@
 package mango.challenge.products.service;
 
+import mango.challenge.products.cache.PriceTimeline;
+import mango.challenge.products.cache.PriceTimelineCache;
+import mango.challenge.products.dto.FieldsetPage;
+import mango.challenge.products.dto.PriceChangeResponse;
+import mango.challenge.products.dto.PriceField;
 import mango.challenge.products.dto.PriceRequest;
 import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.event.PriceChangedEvent;
 import mango.challenge.products.exception.ResourceNotFoundException;
 import mango.challenge.products.model.Price;
 import mango.challenge.products.model.Product;
 import mango.challenge.products.repository.PriceRepository;
+import mango.challenge.products.sharding.ScatterGather;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.when;
 
 public class PriceServiceTest {
     private PriceRepository priceRepository;
     private ProductService productService;
+    private ApplicationEventPublisher eventPublisher;
+    private PriceTimelineCache priceTimelineCache;
     private PriceService priceService;
 
     @BeforeEach
     void setUp() {
         priceRepository = mock(PriceRepository.class);
         productService = mock(ProductService.class);
-        priceService = new PriceService(priceRepository, productService);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        priceTimelineCache = mock(PriceTimelineCache.class);
+        priceService = new PriceService(priceRepository, productService, eventPublisher, priceTimelineCache,
+                ScatterGather.singleShard(mock(PlatformTransactionManager.class)));
     }
 
     @Test
@@ -181,7 +201,6 @@ public class PriceServiceTest {
                 .product(product)
                 .build();
 
-        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
         when(priceRepository.findAll(ArgumentMatchers.<Specification<Price>>any(), any(Pageable.class)))
                 .thenReturn(new PageImpl<>(List.of(p)));
 
@@ -203,7 +222,6 @@ public class PriceServiceTest {
                 .product(product)
                 .build();
 
-        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
         when(priceRepository.findAll(ArgumentMatchers.<Specification<Price>>any(), any(Pageable.class)))
                 .thenReturn(new PageImpl<>(List.of(p)));
 
@@ -216,8 +234,6 @@ public class PriceServiceTest {
 
     @Test
     void shouldThrowException_whenNoPriceFoundForDate() {
-        Product product = Product.builder().id(1L).build();
-        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
         when(priceRepository.findAll(ArgumentMatchers.<Specification<Price>>any(), any(Pageable.class)))
                 .thenReturn(Page.empty());
 
@@ -229,8 +245,7 @@ public class PriceServiceTest {
 
     @Test
     void shouldThrowException_whenProductNotExists_date() {
-        when(productService.getProductByIdOrThrow(99L))
-                .thenThrow(new RuntimeException("Producto no encontrado"));
+        doThrow(new RuntimeException("Producto no encontrado")).when(productService).assertProductExists(99L);
 
         assertThatThrownBy(() -> priceService.getPrices(99L, LocalDate.of(2025, 9, 5),
                 null, null, null, null, PageRequest.of(0, 10)))
@@ -244,7 +259,6 @@ public class PriceServiceTest {
         Price p1 = Price.builder().id(1L).value(BigDecimal.valueOf(10)).initDate(LocalDate.of(2025, 9, 1)).product(product).build();
         Price p2 = Price.builder().id(2L).value(BigDecimal.valueOf(20)).initDate(LocalDate.of(2025, 9, 2)).product(product).build();
 
-        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
         when(priceRepository.findAll(ArgumentMatchers.<Specification<Price>>any(), any(Pageable.class)))
                 .thenReturn(new PageImpl<>(List.of(p1, p2)));
 
@@ -259,7 +273,6 @@ public class PriceServiceTest {
         Price p1 = Price.builder().id(1L).value(BigDecimal.valueOf(10)).initDate(LocalDate.of(2025, 9, 2)).product(product).build();
         Price p2 = Price.builder().id(2L).value(BigDecimal.valueOf(20)).initDate(LocalDate.of(2025, 9, 1)).product(product).build();
 
-        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
         when(priceRepository.findAll(ArgumentMatchers.<Specification<Price>>any(), any(Pageable.class)))
                 .thenReturn(new PageImpl<>(List.of(p2, p1))); // simula ordenado
 
@@ -275,7 +288,6 @@ public class PriceServiceTest {
         Product product = Product.builder().id(1L).build();
         Price p1 = Price.builder().id(1L).value(BigDecimal.valueOf(10)).initDate(LocalDate.of(2025, 9, 1)).product(product).build();
 
-        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
         when(priceRepository.findAll(ArgumentMatchers.<Specification<Price>>any(), any(Pageable.class)))
                 .thenReturn(new PageImpl<>(List.of(p1)));
 
@@ -291,7 +303,6 @@ public class PriceServiceTest {
         Product product = Product.builder().id(1L).build();
         Price p1 = Price.builder().id(1L).value(BigDecimal.valueOf(15)).initDate(LocalDate.of(2025, 9, 1)).product(product).build();
 
-        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
         when(priceRepository.findAll(ArgumentMatchers.<Specification<Price>>any(), any(Pageable.class)))
                 .thenReturn(new PageImpl<>(List.of(p1)));
 
@@ -311,7 +322,6 @@ public class PriceServiceTest {
                 .product(product)
                 .build();
 
-        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
         when(priceRepository.findAll(ArgumentMatchers.<Specification<Price>>any(), any(Pageable.class)))
                 .thenReturn(new PageImpl<>(List.of(p1)));
 
@@ -326,8 +336,7 @@ public class PriceServiceTest {
 
     @Test
     void shouldThrowException_whenProductNotExists_filters() {
-        when(productService.getProductByIdOrThrow(99L))
-                .thenThrow(new RuntimeException("Producto no encontrado"));
+        doThrow(new RuntimeException("Producto no encontrado")).when(productService).assertProductExists(99L);
 
         assertThatThrownBy(() -> priceService.getPrices(99L, null, null, null, null, null, PageRequest.of(0, 10)))
                 .isInstanceOf(RuntimeException.class)
@@ -335,6 +344,109 @@ public class PriceServiceTest {
     }
 
 
+    @Test
+    void getPriceFields_shouldSkipCountQuery_whenTotalsNotRequested() {
+        when(priceRepository.findFields(ArgumentMatchers.<Specification<Price>>any(), anyList(), any(Pageable.class), eq(3)))
+                .thenReturn(List.of(
+                        Map.of("value", BigDecimal.valueOf(10)),
+                        Map.of("value", BigDecimal.valueOf(20)),
+                        Map.of("value", BigDecimal.valueOf(30))));
+
+        FieldsetPage result = priceService.getPriceFields(1L, null, null, null, null, null,
+                List.of(PriceField.VALUE), false, PageRequest.of(0, 2));
+
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(result.getTotalElements()).isNull();
+        verify(priceRepository, never()).count(ArgumentMatchers.<Specification<Price>>any());
+    }
+
+    @Test
+    void getPriceFields_shouldComputeTotalsWithoutCount_whenLastPage() {
+        when(priceRepository.findFields(ArgumentMatchers.<Specification<Price>>any(), anyList(), any(Pageable.class), eq(11)))
+                .thenReturn(List.of(Map.of("value", BigDecimal.valueOf(10))));
+
+        FieldsetPage result = priceService.getPriceFields(1L, null, null, null, null, null,
+                List.of(PriceField.VALUE), true, PageRequest.of(1, 10));
+
+        assertThat(result.isHasNext()).isFalse();
+        assertThat(result.getTotalElements()).isEqualTo(11L);
+        verify(priceRepository, never()).count(ArgumentMatchers.<Specification<Price>>any());
+    }
+
+    @Test
+    void getPriceFields_shouldCount_whenPageIsPastTheEnd() {
+        when(priceRepository.findFields(ArgumentMatchers.<Specification<Price>>any(), anyList(), any(Pageable.class), eq(11)))
+                .thenReturn(List.of());
+        when(priceRepository.count(ArgumentMatchers.<Specification<Price>>any())).thenReturn(3L);
+
+        FieldsetPage result = priceService.getPriceFields(1L, null, null, null, null, null,
+                List.of(PriceField.VALUE), true, PageRequest.of(5, 10));
+
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getTotalElements()).isEqualTo(3L);
+    }
+
+    @Test
+    void getPriceFields_shouldCount_whenTotalsRequestedAndMorePages() {
+        when(priceRepository.findFields(ArgumentMatchers.<Specification<Price>>any(), anyList(), any(Pageable.class), eq(2)))
+                .thenReturn(List.of(Map.of("value", BigDecimal.valueOf(10)), Map.of("value", BigDecimal.valueOf(20))));
+        when(priceRepository.count(ArgumentMatchers.<Specification<Price>>any())).thenReturn(42L);
+
+        FieldsetPage result = priceService.getPriceFields(1L, null, null, null, null, null,
+                List.of(PriceField.VALUE), true, PageRequest.of(0, 1));
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getTotalElements()).isEqualTo(42L);
+    }
+
+    @Test
+    void getPricesByProductIds_shouldGroupByProductInSingleQuery() {
+        Product product1 = Product.builder().id(1L).build();
+        Product product2 = Product.builder().id(2L).build();
+        Price p1 = Price.builder().id(1L).value(BigDecimal.valueOf(10)).initDate(LocalDate.of(2025, 9, 1)).product(product1).build();
+        Price p2 = Price.builder().id(2L).value(BigDecimal.valueOf(20)).initDate(LocalDate.of(2025, 9, 2)).product(product1).build();
+
+        when(priceRepository.findRecentByProductIdIn(ArgumentMatchers.<Collection<Long>>any(), eq(20)))
+                .thenReturn(List.of(p2, p1));
+
+        Map<Long, List<PriceResponse>> result = priceService.getPricesByProductIds(List.of(1L, 2L), 20);
+
+        assertThat(result.get(1L)).extracting(PriceResponse::getId).containsExactly(2L, 1L);
+        assertThat(result.get(2L)).isEmpty();
+        verify(priceRepository, times(1)).findRecentByProductIdIn(ArgumentMatchers.<Collection<Long>>any(), eq(20));
+    }
+
+    @Test
+    void getPricesAtByProductIds_shouldOmitProductsWithoutActivePrice() {
+        LocalDate date = LocalDate.of(2025, 9, 15);
+        PriceResponse price = new PriceResponse(2L, 1L, BigDecimal.valueOf(20), LocalDate.of(2025, 9, 2), null);
+        when(priceRepository.findPricesAt(ArgumentMatchers.<Collection<Long>>any(), eq(date))).thenReturn(List.of(price));
+
+        Map<Long, PriceResponse> result = priceService.getPricesAtByProductIds(List.of(1L, 2L), date);
+
+        assertThat(result).containsOnlyKeys(1L);
+        assertThat(result.get(1L).getId()).isEqualTo(2L);
+    }
+
+    @Test
+    void streamPriceChanges_shouldEmitEachChangedProduct() {
+        PriceRepository.PriceChangeView change = mock(PriceRepository.PriceChangeView.class);
+        when(change.getProductId()).thenReturn(1L);
+        when(change.getOldValue()).thenReturn(BigDecimal.valueOf(100));
+        when(change.getNewValue()).thenReturn(BigDecimal.valueOf(110));
+        when(priceRepository.streamPriceChanges(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 5, 1)))
+                .thenReturn(Stream.of(change));
+
+        List<PriceChangeResponse> emitted = new ArrayList<>();
+        priceService.streamPriceChanges(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 5, 1), emitted::add);
+
+        assertThat(emitted).hasSize(1);
+        assertThat(emitted.getFirst().getProductId()).isEqualTo(1L);
+        assertThat(emitted.getFirst().getOldValue()).isEqualByComparingTo(BigDecimal.valueOf(100));
+        assertThat(emitted.getFirst().getNewValue()).isEqualByComparingTo(BigDecimal.valueOf(110));
+    }
+
     @Test
     void updatePrice_shouldUpdateValueOnly() {
         Product product = Product.builder().id(1L).prices(List.of()).build();
@@ -419,6 +531,41 @@ public class PriceServiceTest {
                 .hasMessage("El rango de fechas se solapa con otro precio existente");
     }
 
+    @Test
+    void updatePrice_shouldAllowClosedPriceBeforeOpenEndedPrice() {
+        Price p1 = Price.builder().id(1L).value(BigDecimal.valueOf(50)).initDate(LocalDate.of(2025, 9, 1))
+                .endDate(LocalDate.of(2025, 9, 10)).build();
+        Price p2 = Price.builder().id(2L).initDate(LocalDate.of(2025, 9, 11)).endDate(null).build();
+        Product product = Product.builder().id(1L).prices(List.of(p1, p2)).build();
+
+        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
+        when(priceRepository.findById(1L)).thenReturn(Optional.of(p1));
+        when(priceRepository.save(any(Price.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PriceRequest dto = PriceRequest.builder().value(BigDecimal.valueOf(55)).build();
+
+        PriceResponse response = priceService.updatePrice(1L, 1L, dto);
+
+        assertThat(response.getValue()).isEqualTo(BigDecimal.valueOf(55));
+    }
+
+    @Test
+    void updatePrice_shouldThrowException_whenClosedPriceReachesOpenEndedPrice() {
+        Price p1 = Price.builder().id(1L).initDate(LocalDate.of(2025, 9, 1))
+                .endDate(LocalDate.of(2025, 9, 10)).build();
+        Price p2 = Price.builder().id(2L).initDate(LocalDate.of(2025, 9, 11)).endDate(null).build();
+        Product product = Product.builder().id(1L).prices(List.of(p1, p2)).build();
+
+        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
+        when(priceRepository.findById(1L)).thenReturn(Optional.of(p1));
+
+        PriceRequest dto = PriceRequest.builder().endDate(LocalDate.of(2025, 9, 11)).build();
+
+        assertThatThrownBy(() -> priceService.updatePrice(1L, 1L, dto))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El rango de fechas se solapa con otro precio existente");
+    }
+
     @Test
     void updatePrice_shouldThrowException_whenProductNotFound() {
         when(productService.getProductByIdOrThrow(1L)).thenThrow(new ResourceNotFoundException("Producto no encontrado"));
@@ -474,4 +621,97 @@ public class PriceServiceTest {
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Precio no encontrado para el producto especificado");
     }
+
+    @Test
+    void deletePrice_shouldPublishEventWithBeforeImage() {
+        Product product = Product.builder().id(1L).build();
+        Price existing = Price.builder().id(1L).product(product).value(BigDecimal.valueOf(50))
+                .initDate(LocalDate.of(2025, 9, 1)).endDate(LocalDate.of(2025, 9, 30)).build();
+        when(priceRepository.findByIdAndProductId(1L, 1L)).thenReturn(Optional.of(existing));
+        when(priceRepository.deleteByIdAndProductId(1L, 1L)).thenReturn(1);
+
+        priceService.deletePrice(1L, 1L);
+
+        ArgumentCaptor<PriceChangedEvent> captor = ArgumentCaptor.forClass(PriceChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().operation()).isEqualTo(PriceChangedEvent.Operation.DELETE);
+        assertThat(captor.getValue().before().value()).isEqualByComparingTo(BigDecimal.valueOf(50));
+        assertThat(captor.getValue().after()).isNull();
+    }
+
+    @Test
+    void updatePrice_shouldPublishEventWithBeforeAndAfterImages() {
+        Product product = Product.builder().id(1L).build();
+        Price existing = Price.builder().id(1L).product(product).value(BigDecimal.valueOf(50.0))
+                .initDate(LocalDate.of(2025, 9, 1)).endDate(LocalDate.of(2025, 9, 30)).build();
+        product.setPrices(List.of(existing));
+
+        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
+        when(priceRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(priceRepository.save(any(Price.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        priceService.updatePrice(1L, 1L, PriceRequest.builder().value(BigDecimal.valueOf(60.0)).build());
+
+        ArgumentCaptor<PriceChangedEvent> captor = ArgumentCaptor.forClass(PriceChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().operation()).isEqualTo(PriceChangedEvent.Operation.UPDATE);
+        assertThat(captor.getValue().before().value()).isEqualTo(BigDecimal.valueOf(50.0));
+        assertThat(captor.getValue().after().value()).isEqualTo(BigDecimal.valueOf(60.0));
+    }
+
+    @Test
+    void addPrice_shouldNotPublishEvent_whenOverlap() {
+        Product product = Product.builder().id(1L).prices(List.of()).build();
+        when(productService.getProductByIdOrThrow(1L)).thenReturn(product);
+        when(priceRepository.existsOverlappingPrice(any(), any(), any())).thenReturn(true);
+
+        PriceRequest dto = PriceRequest.builder()
+                .value(BigDecimal.valueOf(60.0))
+                .initDate(LocalDate.of(2025, 9, 5))
+                .build();
+
+        assertThatThrownBy(() -> priceService.addPrice(1L, dto)).isInstanceOf(IllegalArgumentException.class);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void getPrices_shouldUsePinnedTimeline_whenOnlyDateIsGiven() {
+        PriceTimeline timeline = PriceTimeline.of(List.of(
+                PriceResponse.builder().id(1L).productId(1L).value(BigDecimal.valueOf(50))
+                        .initDate(LocalDate.of(2025, 1, 1)).endDate(LocalDate.of(2025, 1, 31)).build(),
+                PriceResponse.builder().id(2L).productId(1L).value(BigDecimal.valueOf(60))
+                        .initDate(LocalDate.of(2025, 2, 1)).build()));
+        when(priceTimelineCache.get(1L)).thenReturn(Optional.of(timeline));
+
+        Page<PriceResponse> result = priceService.getPrices(1L, LocalDate.of(2025, 3, 10),
+                null, null, null, null, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting(PriceResponse::getId).containsExactly(2L);
+        verify(priceRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+        verify(productService).assertProductNotDeleted(1L);
+    }
+
+    // La caché de existencia de esta réplica aún cree que existe, pero la consulta filtra deleted_at y no devuelve nada
+    @Test
+    void getPrices_shouldThrowNotFound_whenProductWasDeletedOnAnotherReplica() {
+        when(priceRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(Page.empty());
+        doThrow(new ResourceNotFoundException("Producto no encontrado")).when(productService).assertProductNotDeleted(1L);
+
+        assertThatThrownBy(() -> priceService.getPrices(1L, LocalDate.of(2025, 3, 10),
+                null, null, null, null, PageRequest.of(0, 10)))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void getPrices_shouldThrow_whenPinnedTimelineHasNoPriceForDate() {
+        PriceTimeline timeline = PriceTimeline.of(List.of(
+                PriceResponse.builder().id(1L).productId(1L).value(BigDecimal.valueOf(50))
+                        .initDate(LocalDate.of(2025, 1, 1)).endDate(LocalDate.of(2025, 1, 31)).build()));
+        when(priceTimelineCache.get(1L)).thenReturn(Optional.of(timeline));
+
+        assertThatThrownBy(() -> priceService.getPrices(1L, LocalDate.of(2024, 12, 31),
+                null, null, null, null, PageRequest.of(0, 10)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No hay precio vigente para esta fecha");
+    }
 }
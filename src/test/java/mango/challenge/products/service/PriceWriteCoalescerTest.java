@@ -0,0 +1,113 @@
+package mango.challenge.products.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mango.challenge.products.dto.PriceRequest;
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.event.PriceChangedEvent;
+import mango.challenge.products.exception.PriceOverlapException;
+import mango.challenge.products.exception.ResourceNotFoundException;
+import mango.challenge.products.service.PriceWriteCoalescer.Interval;
+import mango.challenge.products.service.PriceWriteCoalescer.PendingWrite;
+import mango.challenge.products.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PriceWriteCoalescerTest {
+
+    private PriceService priceService;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private PriceWriteCoalescer coalescer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        priceService = mock(PriceService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        // Solo existe el producto 1
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenReturn(List.of(1L));
+        when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), any())).thenReturn(List.of(100L, 101L));
+        coalescer = new PriceWriteCoalescer(priceService, jdbcTemplate, transactionTemplate, eventPublisher,
+                ShardRouter.single(), new SimpleMeterRegistry(), true, 10, Duration.ofMillis(5), 100, Duration.ofMillis(10));
+    }
+
+    @Test
+    void write_shouldCompleteEachRequestWithItsOwnResult() throws Exception {
+        PendingWrite first = pending(1L, "2025-01-01", "2025-01-31");
+        PendingWrite overlapping = pending(1L, "2025-01-15", "2025-02-15");
+        PendingWrite unknownProduct = pending(2L, "2025-01-01", null);
+        PendingWrite second = pending(1L, "2025-02-01", null);
+
+        coalescer.write(List.of(first, overlapping, unknownProduct, second));
+
+        assertThat(first.result().get().getId()).isEqualTo(100L);
+        assertThat(second.result().get().getId()).isEqualTo(101L);
+        assertThatThrownBy(() -> overlapping.result().get()).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(PriceOverlapException.class);
+        assertThatThrownBy(() -> unknownProduct.result().get()).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ResourceNotFoundException.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), argThat((List<?> rows) -> rows.size() == 2), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(eventPublisher, times(2)).publishEvent(any(PriceChangedEvent.class));
+        verifyNoInteractions(priceService);
+    }
+
+    @Test
+    void write_shouldRetryEachRequestIndividually_whenBatchFails() {
+        PendingWrite pending = pending(1L, "2025-01-01", null);
+        doAnswer(invocation -> {
+            throw new DataIntegrityViolationException("chk_date_valid");
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        PriceResponse fallback = PriceResponse.builder().id(7L).productId(1L).build();
+        when(priceService.addPrice(eq(1L), any(PriceRequest.class))).thenReturn(fallback);
+
+        coalescer.write(List.of(pending));
+
+        assertThat(pending.result().join()).isSameAs(fallback);
+    }
+
+    @Test
+    void interval_shouldUseSameOverlapRuleAsRepository() {
+        Interval january = new Interval(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31));
+
+        assertThat(january.overlaps(new Interval(LocalDate.of(2025, 1, 31), null))).isTrue();
+        assertThat(january.overlaps(new Interval(LocalDate.of(2025, 2, 1), null))).isFalse();
+        assertThat(new Interval(LocalDate.of(2024, 1, 1), null).overlaps(january)).isTrue();
+        assertThat(january.span(new Interval(LocalDate.of(2025, 3, 1), null)))
+                .isEqualTo(new Interval(LocalDate.of(2025, 1, 1), null));
+    }
+
+    private static PendingWrite pending(Long productId, String initDate, String endDate) {
+        PriceRequest request = PriceRequest.builder()
+                .value(BigDecimal.TEN)
+                .initDate(LocalDate.parse(initDate))
+                .endDate(endDate != null ? LocalDate.parse(endDate) : null)
+                .build();
+        return new PendingWrite(productId, request, new CompletableFuture<>(), System.nanoTime());
+    }
+}
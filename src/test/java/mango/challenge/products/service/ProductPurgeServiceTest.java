@@ -0,0 +1,83 @@
+package mango.challenge.products.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mango.challenge.products.repository.PriceRepository;
+import mango.challenge.products.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ProductPurgeServiceTest {
+
+    private ProductRepository productRepository;
+    private PriceRepository priceRepository;
+    private TransactionTemplate transactionTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private ProductPurgeService productPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        priceRepository = mock(PriceRepository.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(productRepository.claimForPurge(any())).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+        productPurgeService = new ProductPurgeService(productRepository, priceRepository, transactionTemplate,
+                meterRegistry, 2, 10, Duration.ZERO);
+    }
+
+    @Test
+    void purgeDeletedProducts_shouldDeletePricesInChunksThenProduct() {
+        when(productRepository.findPendingPurgeIds(10)).thenReturn(List.of(1L));
+        when(priceRepository.deleteChunkByProductId(1L, 2)).thenReturn(2, 2, 1);
+        when(productRepository.deletePurged(1L)).thenReturn(1);
+
+        productPurgeService.purgeDeletedProducts();
+
+        verify(priceRepository, times(3)).deleteChunkByProductId(1L, 2);
+        verify(productRepository).deletePurged(1L);
+        verify(productRepository, times(4)).claimForPurge(1L);
+        // Un commit por bloque más el del producto
+        verify(transactionTemplate, times(4)).execute(any());
+        assertThat(meterRegistry.get("purge.prices.deleted").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("purge.products.completed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void purgeDeletedProducts_shouldDoNothing_whenNoProductsPending() {
+        when(productRepository.findPendingPurgeIds(10)).thenReturn(List.of());
+
+        productPurgeService.purgeDeletedProducts();
+
+        verifyNoInteractions(priceRepository);
+        verify(productRepository, never()).deletePurged(any());
+    }
+
+    @Test
+    void purgeDeletedProducts_shouldSkipProductClaimedByAnotherReplica() {
+        when(productRepository.findPendingPurgeIds(10)).thenReturn(List.of(1L, 2L));
+        when(productRepository.claimForPurge(1L)).thenReturn(Optional.empty());
+        when(priceRepository.deleteChunkByProductId(2L, 2)).thenReturn(1);
+        when(productRepository.deletePurged(2L)).thenReturn(1);
+
+        productPurgeService.purgeDeletedProducts();
+
+        verify(priceRepository, never()).deleteChunkByProductId(eq(1L), anyInt());
+        verify(productRepository, never()).deletePurged(1L);
+        verify(productRepository).deletePurged(2L);
+        assertThat(meterRegistry.get("purge.products.completed").counter().count()).isEqualTo(1);
+    }
+}
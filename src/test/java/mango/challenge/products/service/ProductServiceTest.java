@@ -1,31 +1,44 @@
 package mango.challenge.products.service;
 
+import mango.challenge.products.cache.ProductExistenceCache;
 import mango.challenge.products.dto.ProductRequest;
 import mango.challenge.products.dto.ProductResponse;
+import mango.challenge.products.event.ProductDeletedEvent;
 import mango.challenge.products.exception.ResourceNotFoundException;
 import mango.challenge.products.model.Product;
 import mango.challenge.products.repository.ProductRepository;
+import mango.challenge.products.sharding.ScatterGather;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.when;
 
 public class ProductServiceTest {
     private ProductRepository productRepository;
+    private ProductExistenceCache productExistenceCache;
+    private ApplicationEventPublisher eventPublisher;
     private ProductService productService;
 
     @BeforeEach
     void setUp() {
         productRepository = mock(ProductRepository.class);
-        productService = new ProductService(productRepository);
+        productExistenceCache = mock(ProductExistenceCache.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        productService = new ProductService(productRepository,
+                ScatterGather.singleShard(mock(PlatformTransactionManager.class)), productExistenceCache, eventPublisher);
     }
 
     @Test
@@ -112,4 +125,54 @@ public class ProductServiceTest {
         assertThat(response.get(0).getName()).isEqualTo("Producto A");
         assertThat(response.get(1).getName()).isEqualTo("Producto B");
     }
+
+    @Test
+    void assertProductExists_shouldSkipDatabase_whenIdIsKnown() {
+        when(productExistenceCache.contains(1L)).thenReturn(true);
+
+        productService.assertProductExists(1L);
+
+        verify(productRepository, never()).existsById(any());
+    }
+
+    @Test
+    void assertProductExists_shouldRememberProduct_whenFoundInDatabase() {
+        when(productRepository.existsById(1L)).thenReturn(true);
+
+        productService.assertProductExists(1L);
+
+        verify(productExistenceCache).add(1L);
+    }
+
+    @Test
+    void assertProductExists_shouldThrow_whenNotFound() {
+        when(productRepository.existsById(99L)).thenReturn(false);
+
+        assertThatThrownBy(() -> productService.assertProductExists(99L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Producto no encontrado");
+        verify(productExistenceCache, never()).add(anyLong());
+    }
+
+    @Test
+    void deleteProduct_shouldMarkProductAsDeleted() {
+        when(productRepository.markDeleted(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+
+        productService.deleteProduct(1L);
+
+        verify(productRepository).markDeleted(eq(1L), any(LocalDateTime.class));
+        verify(productRepository, never()).delete(any());
+        verify(productExistenceCache).remove(1L);
+        verify(eventPublisher).publishEvent(new ProductDeletedEvent(1L));
+    }
+
+    @Test
+    void deleteProduct_shouldThrow_whenNotFoundOrAlreadyDeleted() {
+        when(productRepository.markDeleted(eq(1L), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThatThrownBy(() -> productService.deleteProduct(1L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Producto no encontrado");
+        verifyNoInteractions(eventPublisher);
+    }
 }
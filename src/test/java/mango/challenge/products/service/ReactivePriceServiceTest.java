@@ -0,0 +1,112 @@
+package mango.challenge.products.service;
+
+import mango.challenge.products.cache.PriceTimeline;
+import mango.challenge.products.cache.PriceTimelineCache;
+import mango.challenge.products.dto.PriceResponse;
+import mango.challenge.products.exception.ResourceNotFoundException;
+import mango.challenge.products.repository.ReactivePriceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ReactivePriceServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 6, 15);
+
+    private ReactivePriceRepository reactivePriceRepository;
+    private PriceTimelineCache priceTimelineCache;
+    private ReactivePriceService reactivePriceService;
+
+    @BeforeEach
+    void setUp() {
+        reactivePriceRepository = mock(ReactivePriceRepository.class);
+        priceTimelineCache = mock(PriceTimelineCache.class);
+        reactivePriceService = new ReactivePriceService(reactivePriceRepository, priceTimelineCache);
+        when(priceTimelineCache.get(anyLong())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void getPriceAt_shouldReturnPriceFromRepository() {
+        PriceResponse price = price(10L, "2024-01-01", "2024-12-31");
+        when(reactivePriceRepository.existsProduct(1L)).thenReturn(Mono.just(true));
+        when(reactivePriceRepository.findPriceAt(1L, DATE)).thenReturn(Mono.just(price));
+
+        StepVerifier.create(reactivePriceService.getPriceAt(1L, DATE))
+                .expectNext(price)
+                .verifyComplete();
+    }
+
+    @Test
+    void getPriceAt_shouldUseCachedTimeline_whenProductIsHot() {
+        PriceResponse price = price(10L, "2024-01-01", "2024-12-31");
+        when(priceTimelineCache.get(1L)).thenReturn(Optional.of(PriceTimeline.of(List.of(price))));
+        when(reactivePriceRepository.existsProduct(1L)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(reactivePriceService.getPriceAt(1L, DATE))
+                .expectNext(price)
+                .verifyComplete();
+        verify(reactivePriceRepository, never()).findPriceAt(any(), any());
+    }
+
+    @Test
+    void getPriceAt_shouldFailWithNotFound_whenProductDoesNotExist() {
+        when(reactivePriceRepository.existsProduct(1L)).thenReturn(Mono.just(false));
+        when(reactivePriceRepository.findPriceAt(1L, DATE)).thenReturn(Mono.empty());
+
+        StepVerifier.create(reactivePriceService.getPriceAt(1L, DATE))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(ResourceNotFoundException.class)
+                        .hasMessage("Producto no encontrado"))
+                .verify();
+    }
+
+    @Test
+    void getPriceAt_shouldFailWithBadRequest_whenNoPriceIsActive() {
+        when(reactivePriceRepository.existsProduct(1L)).thenReturn(Mono.just(true));
+        when(reactivePriceRepository.findPriceAt(1L, DATE)).thenReturn(Mono.empty());
+
+        StepVerifier.create(reactivePriceService.getPriceAt(1L, DATE))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage("No hay precio vigente para esta fecha"))
+                .verify();
+    }
+
+    @Test
+    void getPriceHistory_shouldStreamPricesOfExistingProduct() {
+        PriceResponse first = price(10L, "2024-01-01", "2024-06-30");
+        PriceResponse second = price(11L, "2024-07-01", null);
+        when(reactivePriceRepository.existsProduct(1L)).thenReturn(Mono.just(true));
+        when(reactivePriceRepository.findHistory(1L, null, null)).thenReturn(Flux.just(first, second));
+
+        StepVerifier.create(reactivePriceService.getPriceHistory(1L, null, null))
+                .expectNext(first, second)
+                .verifyComplete();
+    }
+
+    @Test
+    void getPriceHistory_shouldNotQueryPrices_whenProductDoesNotExist() {
+        when(reactivePriceRepository.existsProduct(1L)).thenReturn(Mono.just(false));
+        when(reactivePriceRepository.findHistory(1L, null, null)).thenReturn(Flux.error(new AssertionError("no debería suscribirse")));
+
+        StepVerifier.create(reactivePriceService.getPriceHistory(1L, null, null))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    private static PriceResponse price(Long id, String initDate, String endDate) {
+        return new PriceResponse(id, 1L, new BigDecimal("19.99"), LocalDate.parse(initDate),
+                endDate != null ? LocalDate.parse(endDate) : null);
+    }
+}
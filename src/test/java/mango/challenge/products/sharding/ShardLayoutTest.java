@@ -0,0 +1,20 @@
+package mango.challenge.products.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardLayoutTest {
+
+    @Test
+    void alignedTo_shouldRequireShardCountIncrementAndShardResidue() {
+        assertThat(new ShardLayout.SequenceState(3, 10).alignedTo(1, 3)).isTrue();
+        assertThat(new ShardLayout.SequenceState(1, 10).alignedTo(1, 3)).isFalse();
+        assertThat(new ShardLayout.SequenceState(3, 10).alignedTo(0, 3)).isFalse();
+    }
+
+    @Test
+    void alignedTo_shouldAcceptUntouchedSequence_whenSingleShard() {
+        assertThat(new ShardLayout.SequenceState(1, 1).alignedTo(0, 1)).isTrue();
+    }
+}
@@ -0,0 +1,56 @@
+package mango.challenge.products.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShardRouterTest {
+
+    private final ShardRouter shardRouter = new ShardRouter(3, true);
+
+    @Test
+    void shardFor_shouldUseIdModuloShardCount() {
+        assertThat(shardRouter.shardFor(9)).isZero();
+        assertThat(shardRouter.shardFor(10)).isEqualTo(1);
+        assertThat(shardRouter.shardFor(11)).isEqualTo(2);
+    }
+
+    @Test
+    void shardForNewProduct_shouldRotateOverAllShards() {
+        assertThat(List.of(shardRouter.shardForNewProduct(), shardRouter.shardForNewProduct(),
+                shardRouter.shardForNewProduct(), shardRouter.shardForNewProduct()))
+                .containsExactly(0, 1, 2, 0);
+    }
+
+    @Test
+    void partition_shouldGroupByShardInShardOrder() {
+        Map<Integer, List<Long>> byShard = shardRouter.partition(List.of(5L, 3L, 4L, 6L), Long::longValue);
+
+        assertThat(byShard.keySet()).containsExactly(0, 1, 2);
+        assertThat(byShard.get(0)).containsExactly(3L, 6L);
+        assertThat(byShard.get(1)).containsExactly(4L);
+        assertThat(byShard.get(2)).containsExactly(5L);
+    }
+
+    @Test
+    void forEachShard_shouldSetContextForEachShardAndRestoreIt() {
+        List<Integer> visited = new ArrayList<>();
+
+        shardRouter.forEachShard(() -> visited.add(ShardContext.current()));
+
+        assertThat(visited).containsExactly(0, 1, 2);
+        assertThat(ShardContext.current()).isNull();
+    }
+
+    @Test
+    void callOn_shouldNotSetContext_whenNotRouted() {
+        assertThat(ShardRouter.single().callOn(0, ShardContext::current)).isNull();
+        assertThatThrownBy(() -> shardRouter.callOn(3, ShardContext::current))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,73 @@
+package mango.challenge.products.support;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Registra las sentencias SQL que ejecuta el hilo del test para poder fijar un presupuesto exacto de consultas.
+ * <p>
+ * Uso: {@code @Import(QueryBudget.class)} en un {@code @SpringBootTest}, {@code queryBudget.reset()} antes de la
+ * operación medida y {@code queryBudget.assertSelects(2)} (o el resto de aserciones) después.
+ */
+@TestComponent
+public class QueryBudget implements QueryExecutionListener {
+
+    private final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        queryInfoList.forEach(queryInfo -> statements.get().add(queryInfo.getQuery()));
+    }
+
+    public void reset() {
+        statements.get().clear();
+    }
+
+    public List<String> statements() {
+        return List.copyOf(statements.get());
+    }
+
+    public void assertSelects(int expected) {
+        assertCount(QueryType.SELECT, expected);
+    }
+
+    public void assertInserts(int expected) {
+        assertCount(QueryType.INSERT, expected);
+    }
+
+    public void assertUpdates(int expected) {
+        assertCount(QueryType.UPDATE, expected);
+    }
+
+    public void assertDeletes(int expected) {
+        assertCount(QueryType.DELETE, expected);
+    }
+
+    public void assertTotal(int expected) {
+        assertThat(statements.get())
+                .as("Sentencias SQL ejecutadas:%n%s", String.join("\n", statements.get()))
+                .hasSize(expected);
+    }
+
+    private void assertCount(QueryType type, int expected) {
+        List<String> matching = statements.get().stream()
+                .filter(sql -> QueryUtils.getQueryType(sql) == type)
+                .toList();
+        assertThat(matching)
+                .as("Sentencias %s ejecutadas:%n%s", type, String.join("\n", statements.get()))
+                .hasSize(expected);
+    }
+}